@@ -0,0 +1,216 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Supplier;
+import pl.project13.core.CommitIdGenerationMode;
+import pl.project13.core.CommitIdPropertiesOutputFormat;
+import pl.project13.core.GitCommitIdPlugin;
+import pl.project13.core.git.GitDescribeConfig;
+import pl.project13.core.log.LogInterface;
+import pl.project13.core.util.BuildFileChangeListener;
+
+/**
+ * A {@link GitCommitIdPlugin.Callback} with the defaults of the {@code revision} goal, so that the
+ * benchmarks don't depend on a maven session.
+ */
+final class BenchmarkCallback implements GitCommitIdPlugin.Callback {
+  /** A {@link LogInterface} that discards everything, like a non-verbose execution. */
+  static final LogInterface SILENT_LOG =
+      new LogInterface() {
+        @Override
+        public void debug(String msg) {}
+
+        @Override
+        public void info(String msg) {}
+
+        @Override
+        public void warn(String msg) {}
+
+        @Override
+        public void error(String msg) {}
+
+        @Override
+        public void error(String msg, Throwable t) {}
+      };
+
+  private final File projectBaseDir;
+  boolean useNativeGit;
+  List<String> includeOnlyProperties = Collections.emptyList();
+  CommitIdPropertiesOutputFormat propertiesOutputFormat = CommitIdPropertiesOutputFormat.PROPERTIES;
+  File generateGitPropertiesFile;
+
+  /**
+   * Creates a callback for the given project.
+   *
+   * @param projectBaseDir The base directory of the project
+   */
+  BenchmarkCallback(File projectBaseDir) {
+    this.projectBaseDir = projectBaseDir;
+  }
+
+  @Override
+  public Supplier<String> supplyProjectVersion() {
+    return () -> "1.0.0-SNAPSHOT";
+  }
+
+  @Override
+  public LogInterface getLogInterface() {
+    return SILENT_LOG;
+  }
+
+  @Override
+  public String getDateFormat() {
+    return "yyyy-MM-dd'T'HH:mm:ssZ";
+  }
+
+  @Override
+  public String getDateFormatTimeZone() {
+    return null;
+  }
+
+  @Override
+  public String getPrefixDot() {
+    return "git.";
+  }
+
+  @Override
+  public List<String> getExcludeProperties() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public List<String> getIncludeOnlyProperties() {
+    return includeOnlyProperties;
+  }
+
+  @Override
+  public Date getReproducibleBuildOutputTimestamp() {
+    return null;
+  }
+
+  @Override
+  public boolean useNativeGit() {
+    return useNativeGit;
+  }
+
+  @Override
+  public long getNativeGitTimeoutInMs() {
+    return 30000;
+  }
+
+  @Override
+  public int getAbbrevLength() {
+    return 7;
+  }
+
+  @Override
+  public GitDescribeConfig getGitDescribe() {
+    return new GitDescribeConfig();
+  }
+
+  @Override
+  public CommitIdGenerationMode getCommitIdGenerationMode() {
+    return CommitIdGenerationMode.FLAT;
+  }
+
+  @Override
+  public boolean getUseBranchNameFromBuildEnvironment() {
+    return false;
+  }
+
+  @Override
+  public boolean isOffline() {
+    // ahead/behind must not fetch from the (non-existing) origin
+    return true;
+  }
+
+  @Override
+  public String getEvaluateOnCommit() {
+    return "HEAD";
+  }
+
+  @Override
+  public File getDotGitDirectory() {
+    return new File(projectBaseDir, ".git");
+  }
+
+  @Override
+  public boolean shouldGenerateGitPropertiesFile() {
+    return generateGitPropertiesFile != null;
+  }
+
+  @Override
+  public void performPublishToAllSystemEnvironments(Properties properties) {}
+
+  @Override
+  public void performPropertiesReplacement(Properties properties) {}
+
+  @Override
+  public CommitIdPropertiesOutputFormat getPropertiesOutputFormat() {
+    return propertiesOutputFormat;
+  }
+
+  @Override
+  public BuildFileChangeListener getBuildFileChangeListener() {
+    return file -> { };
+  }
+
+  @Override
+  public String getProjectName() {
+    return "benchmark";
+  }
+
+  @Override
+  public File getProjectBaseDir() {
+    return projectBaseDir;
+  }
+
+  @Override
+  public File getGenerateGitPropertiesFile() {
+    return generateGitPropertiesFile;
+  }
+
+  @Override
+  public Charset getPropertiesSourceCharset() {
+    return StandardCharsets.UTF_8;
+  }
+
+  @Override
+  public boolean shouldPropertiesEscapeUnicode() {
+    return false;
+  }
+
+  @Override
+  public boolean shouldFailOnNoGitDirectory() {
+    return true;
+  }
+
+  @Override
+  public boolean isPerModuleVersions() {
+    return false;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+/**
+ * A git repository that is generated (by the {@link SyntheticRepositoryGenerator}) into a temporary
+ * directory for the benchmarks and deleted afterwards.
+ */
+final class BenchmarkRepository implements AutoCloseable {
+  private final Path directory;
+
+  private BenchmarkRepository(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Generates a new repository.
+   *
+   * @param generator The configured generator
+   * @return The generated repository
+   * @throws Exception if the repository could not be generated
+   */
+  static BenchmarkRepository generate(SyntheticRepositoryGenerator generator) throws Exception {
+    Path directory = Files.createTempDirectory("git-commit-id-benchmark");
+    BenchmarkRepository repository = new BenchmarkRepository(directory);
+    try {
+      generator.generate(directory);
+    } catch (Exception e) {
+      repository.close();
+      throw e;
+    }
+    return repository;
+  }
+
+  /**
+   * Returns the working tree of the repository.
+   *
+   * @return The working tree of the repository
+   */
+  File getDirectory() {
+    return directory.toFile();
+  }
+
+  /**
+   * Loads all git properties of the repository (e.g. as input for the benchmarks that process
+   * them).
+   *
+   * @return The git properties of the repository
+   * @throws Exception if the git data could not be loaded
+   */
+  Properties loadGitData() throws Exception {
+    Properties properties = new Properties();
+    GitCommitIdPluginRunner.DEFAULT_GIT_DATA_LOADER.loadGitData(
+        new BenchmarkCallback(getDirectory()), properties);
+    return properties;
+  }
+
+  /**
+   * Writes the commit-graph of all reachable commits with the native git executable.
+   *
+   * @throws Exception if the commit-graph could not be written
+   */
+  void writeCommitGraph() throws Exception {
+    Process process =
+        new ProcessBuilder("git", "commit-graph", "write", "--reachable")
+            .directory(getDirectory())
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .start();
+    if (process.waitFor() != 0) {
+      throw new IOException("Unable to write the commit-graph of " + directory);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long it takes to load the git data with JGit and with the native git executable,
+ * for all properties as well as for every group of properties in isolation (everything else is
+ * excluded via {@code includeOnlyProperties}, which lets the core skip the work behind it).
+ *
+ * <p>The size of the generated repository can be changed with the parameters (e.g. {@code -p
+ * commits=10000,100000,1000000}), a runtime that grows faster than the history reveals super-linear
+ * behavior (e.g. of the {@code describe}, the commit counting or the dirty check).
+ *
+ * <p>The git data is loaded through the same chain of loaders the {@link GitCommitIdMojo} builds
+ * for the options selected by {@link #loader}. The history cache is warm after the first
+ * invocation, hence it is measured in its steady state (an unchanged commit).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GitDataBenchmark {
+  /** The groups of properties that are measured, see {@link #includeOnlyProperties(String)}. */
+  @Param({
+    "all",
+    "buildUser",
+    "branch",
+    "commitId",
+    "commitMetadata",
+    "describe",
+    "dirty",
+    "remote",
+    "tags",
+    "totalCommitCount",
+    "aheadBehind"
+  })
+  public String propertyGroup;
+
+  @Param({"jgit", "native"})
+  public String provider;
+
+  /** The options of the mojo that select the loaders, see {@link #createGitDataLoader(String)}. */
+  @Param({
+    "core",
+    "commitGraph",
+    "historyCache",
+    "trackedOnlyDirtyCheck",
+    "indexOnlyDirtyCheck",
+    "disabledDirtyCheck",
+    "parallelDirtyCheck"
+  })
+  public String loader;
+
+  @Param({"10000"})
+  public int commits;
+
+  @Param({"100"})
+  public int tags;
+
+  @Param({"10"})
+  public int branches;
+
+  @Param({"10"})
+  public int mergeEvery;
+
+  @Param({"1000"})
+  public int files;
+
+  @Param({"100"})
+  public int untrackedFiles;
+
+  private BenchmarkRepository repository;
+  private BenchmarkCallback cb;
+  private GitCommitIdPluginRunner.GitDataLoader gitDataLoader;
+
+  /**
+   * Generates the repository and configures the execution.
+   *
+   * @throws Exception if the repository could not be generated
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    repository =
+        BenchmarkRepository.generate(
+            new SyntheticRepositoryGenerator()
+                .withCommits(commits)
+                .withTags(tags)
+                .withBranches(branches)
+                .withMergeEvery(mergeEvery)
+                .withFiles(files)
+                .withUntrackedFiles(untrackedFiles));
+    cb = new BenchmarkCallback(repository.getDirectory());
+    cb.useNativeGit = "native".equals(provider);
+    cb.includeOnlyProperties = includeOnlyProperties(propertyGroup);
+    if ("commitGraph".equals(loader)) {
+      repository.writeCommitGraph();
+    }
+    gitDataLoader = createGitDataLoader(loader);
+  }
+
+  /**
+   * Deletes the repository.
+   *
+   * @throws Exception if the repository could not be deleted
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    repository.close();
+  }
+
+  /**
+   * Loads the git data.
+   *
+   * @return The git data
+   * @throws Exception if the git data could not be loaded
+   */
+  @Benchmark
+  public Properties loadGitData() throws Exception {
+    Properties properties = new Properties();
+    gitDataLoader.loadGitData(cb, properties);
+    return properties;
+  }
+
+  private static GitCommitIdPluginRunner.GitDataLoader createGitDataLoader(String loader) {
+    GitCommitIdMojo mojo = new GitCommitIdMojo();
+    // the defaults of the parameters that are needed to prepare the configuration
+    mojo.commitIdGenerationMode = "full";
+    mojo.format = "properties";
+    mojo.dirtyCheckMode = "full";
+    switch (loader) {
+      case "core":
+        break;
+      case "commitGraph":
+        mojo.useCommitGraph = true;
+        break;
+      case "historyCache":
+        mojo.useHistoryCache = true;
+        break;
+      case "trackedOnlyDirtyCheck":
+        mojo.dirtyCheckMode = "tracked-only";
+        break;
+      case "indexOnlyDirtyCheck":
+        mojo.dirtyCheckMode = "index-only";
+        break;
+      case "disabledDirtyCheck":
+        mojo.dirtyCheckMode = "disabled";
+        break;
+      case "parallelDirtyCheck":
+        mojo.parallelDirtyCheck = true;
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown loader " + loader);
+    }
+    mojo.prepareConfiguration(BenchmarkCallback.SILENT_LOG);
+    return mojo.createGitDataLoader(BenchmarkCallback.SILENT_LOG);
+  }
+
+  private static List<String> includeOnlyProperties(String propertyGroup) {
+    switch (propertyGroup) {
+      case "all":
+        return Collections.emptyList();
+      case "buildUser":
+        return Arrays.asList("git\\.build\\.user\\..*");
+      case "branch":
+        return Arrays.asList("git\\.branch");
+      case "commitId":
+        return Arrays.asList(
+            "git\\.commit\\.id", "git\\.commit\\.id\\.full", "git\\.commit\\.id\\.abbrev");
+      case "commitMetadata":
+        return Arrays.asList(
+            "git\\.commit\\.user\\..*", "git\\.commit\\.message\\..*", "git\\.commit\\..*time");
+      case "describe":
+        return Arrays.asList("git\\.commit\\.id\\.describe.*");
+      case "dirty":
+        return Arrays.asList("git\\.dirty");
+      case "remote":
+        return Arrays.asList("git\\.remote\\.origin\\.url");
+      case "tags":
+        return Arrays.asList("git\\.tags?", "git\\.closest\\.tag\\..*");
+      case "totalCommitCount":
+        return Arrays.asList("git\\.total\\.commit\\.count");
+      case "aheadBehind":
+        return Arrays.asList("git\\.local\\.branch\\..*");
+      default:
+        throw new IllegalArgumentException("Unknown property group " + propertyGroup);
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.project13.core.CommitIdPropertiesOutputFormat;
+import pl.project13.core.PropertiesFileGenerator;
+
+/**
+ * Measures the generation of the properties file in every {@link CommitIdPropertiesOutputFormat}.
+ * Since the file is only written when its content changed, both cases are measured: {@code
+ * unchanged} (e.g. a rebuild of the same commit) and {@code changed} (e.g. a new {@code
+ * git.build.time} on every build).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PropertiesFileBenchmark {
+  @Param({"PROPERTIES", "JSON", "XML", "YML"})
+  public CommitIdPropertiesOutputFormat format;
+
+  @Param({"unchanged", "changed"})
+  public String content;
+
+  private Properties gitProperties;
+  private File baseDir;
+  private File propertiesFile;
+  private PropertiesFileGenerator propertiesFileGenerator;
+  private long build;
+
+  /**
+   * Loads the git properties and generates the properties file once.
+   *
+   * @throws Exception if the git properties could not be loaded
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    try (BenchmarkRepository repository =
+        BenchmarkRepository.generate(
+            new SyntheticRepositoryGenerator().withCommits(20).withFiles(10))) {
+      gitProperties = repository.loadGitData();
+    }
+    baseDir = Files.createTempDirectory("git-commit-id-benchmark").toFile();
+    propertiesFile = new File(baseDir, "target/classes/git.properties");
+    propertiesFileGenerator =
+        new PropertiesFileGenerator(
+            BenchmarkCallback.SILENT_LOG, file -> { }, format, "git.", "benchmark");
+    generate();
+  }
+
+  /**
+   * Deletes the properties file.
+   *
+   * @throws Exception if the properties file could not be deleted
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    Files.deleteIfExists(propertiesFile.toPath());
+    Files.deleteIfExists(propertiesFile.getParentFile().toPath());
+    Files.deleteIfExists(propertiesFile.getParentFile().getParentFile().toPath());
+    Files.deleteIfExists(baseDir.toPath());
+  }
+
+  /**
+   * Generates the properties file (or leaves it untouched, if its content didn't change).
+   *
+   * @return The generated properties file
+   * @throws Exception if the properties file could not be generated
+   */
+  @Benchmark
+  public File generate() throws Exception {
+    if ("changed".equals(content)) {
+      gitProperties.setProperty("git.build.time", "2024-01-01T00:00:00+0000 #" + build++);
+    }
+    propertiesFileGenerator.maybeGeneratePropertiesFile(
+        gitProperties, baseDir, propertiesFile, StandardCharsets.UTF_8, false);
+    return propertiesFile;
+  }
+}
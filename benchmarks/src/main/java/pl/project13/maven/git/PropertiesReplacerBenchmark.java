@@ -0,0 +1,138 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.PluginParameterExpressionEvaluator;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link PropertiesReplacer} on a realistic set of git properties (including maven's
+ * expression evaluation of every value).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PropertiesReplacerBenchmark {
+  /** The replacements that are performed, see {@link #replacementProperties(String)}. */
+  @Param({"none", "token", "regex", "transformationRules", "singleProperty"})
+  public String replacement;
+
+  private Properties gitProperties;
+  private List<ReplacementProperty> replacementProperties;
+  private PropertiesReplacer propertiesReplacer;
+
+  /**
+   * Loads the git properties and configures the replacements.
+   *
+   * @throws Exception if the git properties could not be loaded
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    try (BenchmarkRepository repository =
+        BenchmarkRepository.generate(
+            new SyntheticRepositoryGenerator().withCommits(20).withFiles(10))) {
+      gitProperties = repository.loadGitData();
+    }
+    replacementProperties = replacementProperties(replacement);
+
+    MavenProject project = new MavenProject();
+    DefaultMavenExecutionRequest request = new DefaultMavenExecutionRequest();
+    request.setSystemProperties(System.getProperties());
+    request.setUserProperties(new Properties());
+    @SuppressWarnings("deprecation")
+    MavenSession session =
+        new MavenSession(null, null, request, new DefaultMavenExecutionResult());
+    session.setCurrentProject(project);
+    propertiesReplacer =
+        new PropertiesReplacer(
+            BenchmarkCallback.SILENT_LOG,
+            new PluginParameterExpressionEvaluator(
+                session, new MojoExecution(new MojoDescriptor())));
+  }
+
+  /**
+   * Performs the replacements on a copy of the git properties.
+   *
+   * @return The git properties after the replacements
+   */
+  @Benchmark
+  public Properties performReplacement() {
+    Properties properties = new Properties();
+    properties.putAll(gitProperties);
+    propertiesReplacer.performReplacement(properties, replacementProperties);
+    return properties;
+  }
+
+  private static List<ReplacementProperty> replacementProperties(String replacement) {
+    switch (replacement) {
+      case "none":
+        return Collections.emptyList();
+      case "token":
+        return Arrays.asList(
+            new ReplacementProperty(null, null, "-", "_", false, false, Collections.emptyList()));
+      case "regex":
+        return Arrays.asList(
+            new ReplacementProperty(
+                null, null, "^([^@]+)@.*$", "$1", true, false, Collections.emptyList()));
+      case "transformationRules":
+        return Arrays.asList(
+            new ReplacementProperty(
+                null,
+                null,
+                "-",
+                "_",
+                false,
+                false,
+                Arrays.asList(
+                    new TransformationRule("BEFORE", "UPPER_CASE"),
+                    new TransformationRule("AFTER", "LOWER_CASE"))));
+      case "singleProperty":
+        return Arrays.asList(
+            new ReplacementProperty(
+                "git.branch", "sanitized", "/", "-", false, false, Collections.emptyList()));
+      default:
+        throw new IllegalArgumentException("Unknown replacement " + replacement);
+    }
+  }
+}
@@ -0,0 +1,431 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.PackInserter;
+import org.eclipse.jgit.lib.BatchRefUpdate;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.lib.TagBuilder;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.ReceiveCommand;
+
+/**
+ * Generates (large) git repositories for benchmarks and scale tests, quickly and without any
+ * network access.
+ *
+ * <p>All objects are written straight into a single pack (there is no working tree or index
+ * involved while the history is built), which makes it possible to generate millions of commits.
+ * The generated repository is deterministic, the same configuration always results in the same
+ * commit ids:
+ *
+ * <ul>
+ *   <li>{@code master} has the configured number of commits, every commit changes one of the
+ *       files in {@code history/}. A merge (of a commit that changes {@code history/side.txt})
+ *       takes the place of every n-th commit if a {@link #withMergeEvery merge density} is
+ *       configured.
+ *   <li>The tags (annotated) and branches are spread evenly over the history, {@code HEAD} itself
+ *       is never tagged.
+ *   <li>The files of {@code src/} are committed once (in the first commit).
+ *   <li>{@code origin/master} is the upstream of {@code master} and three commits behind.
+ *   <li>The working tree is clean (with an up-to-date index), except for the untracked files in
+ *       {@code untracked/}.
+ * </ul>
+ *
+ * <p>The generator can also be used from the command line to generate a repository for manual
+ * scale tests, e.g.:
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar pl.project13.maven.git.SyntheticRepositoryGenerator \
+ *   --commits 1000000 --tags 1000 --branches 100 --merge-every 10 --files 100000 /tmp/huge-repo
+ * </pre>
+ */
+public final class SyntheticRepositoryGenerator {
+  private static final int FILES_PER_DIRECTORY = 100;
+  private static final int HISTORY_FILES = 4;
+  private static final Instant EPOCH = Instant.parse("2020-01-01T00:00:00Z");
+
+  private int commits = 1_000;
+  private int tags = 10;
+  private int branches = 0;
+  private int mergeEvery = 0;
+  private int files = 100;
+  private int untrackedFiles = 0;
+
+  /**
+   * Sets the number of commits (including the merge commits and their second parents).
+   *
+   * @param commits The number of commits
+   * @return This generator
+   */
+  public SyntheticRepositoryGenerator withCommits(int commits) {
+    if (commits < 1) {
+      throw new IllegalArgumentException("At least one commit is required");
+    }
+    this.commits = commits;
+    return this;
+  }
+
+  /**
+   * Sets the number of annotated tags.
+   *
+   * @param tags The number of tags
+   * @return This generator
+   */
+  public SyntheticRepositoryGenerator withTags(int tags) {
+    this.tags = tags;
+    return this;
+  }
+
+  /**
+   * Sets the number of branches (besides {@code master}).
+   *
+   * @param branches The number of branches
+   * @return This generator
+   */
+  public SyntheticRepositoryGenerator withBranches(int branches) {
+    this.branches = branches;
+    return this;
+  }
+
+  /**
+   * Sets the merge density: every n-th commit on {@code master} is a merge ({@code 0} for a linear
+   * history).
+   *
+   * @param mergeEvery The distance between two merges
+   * @return This generator
+   */
+  public SyntheticRepositoryGenerator withMergeEvery(int mergeEvery) {
+    this.mergeEvery = mergeEvery;
+    return this;
+  }
+
+  /**
+   * Sets the number of (tracked) files in {@code src/}.
+   *
+   * @param files The number of files
+   * @return This generator
+   */
+  public SyntheticRepositoryGenerator withFiles(int files) {
+    this.files = files;
+    return this;
+  }
+
+  /**
+   * Sets the number of untracked files in {@code untracked/}.
+   *
+   * @param untrackedFiles The number of untracked files
+   * @return This generator
+   */
+  public SyntheticRepositoryGenerator withUntrackedFiles(int untrackedFiles) {
+    this.untrackedFiles = untrackedFiles;
+    return this;
+  }
+
+  /**
+   * Generates the repository.
+   *
+   * @param directory The (empty or non-existing) directory the repository should be generated in
+   * @throws Exception if the repository could not be generated
+   */
+  public void generate(Path directory) throws Exception {
+    Files.createDirectories(directory);
+    try (Git git = Git.init().setDirectory(directory.toFile()).setInitialBranch("master").call()) {
+      Repository repository = git.getRepository();
+      List<ReceiveCommand> refs = new ArrayList<>();
+      Content content;
+      try (PackInserter inserter =
+          ((FileRepository) repository).getObjectDatabase().newPackInserter()) {
+        inserter.checkExisting(false);
+        inserter.setCompressionLevel(Deflater.BEST_SPEED);
+        content = new Content(inserter);
+        generateHistory(inserter, content, refs);
+        inserter.flush();
+      }
+      updateRefs(repository, refs);
+      configure(repository.getConfig());
+      writeWorkingTree(repository, directory, content);
+    }
+  }
+
+  private void generateHistory(
+      PackInserter inserter, Content content, List<ReceiveCommand> refs) throws IOException {
+    double tagEvery = tags > 0 ? Math.max(1, (commits - 1) / (double) tags) : 0;
+    double branchEvery = branches > 0 ? Math.max(1, commits / (double) branches) : 0;
+    ObjectId[] recent = new ObjectId[4];
+    ObjectId head = null;
+    int created = 0;
+    int createdTags = 0;
+    int createdBranches = 0;
+    while (created < commits) {
+      boolean merge =
+          mergeEvery > 0
+              && head != null
+              && (created + 1) % mergeEvery == 0
+              && created + 2 <= commits;
+      if (merge) {
+        content.update(HISTORY_FILES, "side " + created);
+        ObjectId side = insertCommit(inserter, content, "Side commit " + created, created, head);
+        created++;
+        head =
+            insertCommit(
+                inserter, content, "Merge branch 'side-" + created + "'", created, head, side);
+      } else {
+        content.update(created % HISTORY_FILES, "commit " + created);
+        head =
+            head == null
+                ? insertCommit(inserter, content, "Commit " + created, created)
+                : insertCommit(inserter, content, "Commit " + created, created, head);
+      }
+      recent[created % recent.length] = head;
+
+      if (createdTags < tags && created >= createdTags * tagEvery && created < commits - 1) {
+        String name = "v1." + createdTags + ".0";
+        TagBuilder tag = new TagBuilder();
+        tag.setObjectId(head, Constants.OBJ_COMMIT);
+        tag.setTag(name);
+        tag.setTagger(person(created));
+        tag.setMessage("Release " + name + "\n");
+        refs.add(create(Constants.R_TAGS + name, inserter.insert(tag)));
+        createdTags++;
+      }
+      if (createdBranches < branches && created >= createdBranches * branchEvery) {
+        refs.add(create(Constants.R_HEADS + "branch-" + createdBranches, head));
+        createdBranches++;
+      }
+      created++;
+    }
+    refs.add(create(Constants.R_HEADS + "master", head));
+    ObjectId upstream = recent[Math.max(0, created - 1 - 3) % recent.length];
+    refs.add(create(Constants.R_REMOTES + "origin/master", upstream));
+  }
+
+  private ObjectId insertCommit(
+      PackInserter inserter, Content content, String message, int index, ObjectId... parents)
+      throws IOException {
+    CommitBuilder commit = new CommitBuilder();
+    commit.setTreeId(content.insertTree());
+    commit.setParentIds(parents);
+    commit.setAuthor(person(index));
+    commit.setCommitter(person(index));
+    commit.setMessage(message + "\n\nThe body of " + message.toLowerCase() + "\n");
+    return inserter.insert(commit);
+  }
+
+  private static PersonIdent person(int index) {
+    return new PersonIdent(
+        "Benchmark", "benchmark@example.com", EPOCH.plusSeconds(60L * index), ZoneOffset.UTC);
+  }
+
+  private static ReceiveCommand create(String name, ObjectId id) {
+    return new ReceiveCommand(ObjectId.zeroId(), id, name);
+  }
+
+  private static void updateRefs(Repository repository, List<ReceiveCommand> refs)
+      throws IOException {
+    BatchRefUpdate update = repository.getRefDatabase().newBatchUpdate();
+    update.setAllowNonFastForwards(true);
+    update.addCommand(refs);
+    try (RevWalk walk = new RevWalk(repository)) {
+      update.execute(walk, NullProgressMonitor.INSTANCE);
+    }
+    for (ReceiveCommand command : refs) {
+      if (command.getResult() != ReceiveCommand.Result.OK) {
+        throw new IOException("Unable to create " + command.getRefName() + ": " + command);
+      }
+    }
+  }
+
+  private static void configure(StoredConfig config) throws IOException {
+    config.setString("remote", "origin", "url", "https://example.com/synthetic.git");
+    config.setString("remote", "origin", "fetch", "+refs/heads/*:refs/remotes/origin/*");
+    config.setString("branch", "master", "remote", "origin");
+    config.setString("branch", "master", "merge", "refs/heads/master");
+    config.setString("user", null, "name", "Benchmark");
+    config.setString("user", null, "email", "benchmark@example.com");
+    config.save();
+  }
+
+  private void writeWorkingTree(Repository repository, Path directory, Content content)
+      throws IOException {
+    // a modification time in the past keeps the index from being racily clean
+    FileTime modified = FileTime.from(Instant.now().minusSeconds(3600));
+    DirCache index = repository.lockDirCache();
+    try {
+      DirCacheBuilder builder = index.builder();
+      for (int i = 0; i < content.paths.length; i++) {
+        Path file = directory.resolve(content.paths[i]);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.contents[i]);
+        Files.setLastModifiedTime(file, modified);
+        DirCacheEntry entry = new DirCacheEntry(content.paths[i]);
+        entry.setFileMode(FileMode.REGULAR_FILE);
+        entry.setObjectId(content.blobs[i]);
+        entry.setLength(content.contents[i].length);
+        entry.setLastModified(modified.toInstant());
+        builder.add(entry);
+      }
+      builder.commit();
+    } finally {
+      index.unlock();
+    }
+
+    for (int i = 0; i < untrackedFiles; i++) {
+      Path file =
+          directory.resolve(
+              String.format("untracked/dir-%05d/file-%05d.txt", i / FILES_PER_DIRECTORY, i));
+      Files.createDirectories(file.getParent());
+      Files.write(file, ("untracked " + i + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * The content of the current commit: the files of {@code history/} (which change with every
+   * commit) and the files of {@code src/} (which never change).
+   */
+  private final class Content {
+    private final PackInserter inserter;
+    private final String[] paths;
+    private final byte[][] contents;
+    private final ObjectId[] blobs;
+    private final ObjectId srcTree;
+
+    private Content(PackInserter inserter) throws IOException {
+      this.inserter = inserter;
+      int historyFiles = HISTORY_FILES + 1;
+      paths = new String[historyFiles + files];
+      contents = new byte[paths.length][];
+      blobs = new ObjectId[paths.length];
+      for (int i = 0; i < HISTORY_FILES; i++) {
+        paths[i] = "history/history-" + i + ".txt";
+      }
+      paths[HISTORY_FILES] = "history/side.txt";
+      for (int i = 0; i < historyFiles; i++) {
+        update(i, "initial");
+      }
+
+      TreeFormatter src = new TreeFormatter();
+      for (int dir = 0; dir * FILES_PER_DIRECTORY < files; dir++) {
+        TreeFormatter tree = new TreeFormatter();
+        for (int i = dir * FILES_PER_DIRECTORY;
+            i < Math.min(files, (dir + 1) * FILES_PER_DIRECTORY);
+            i++) {
+          String name = String.format("file-%05d.txt", i);
+          int index = historyFiles + i;
+          paths[index] = String.format("src/dir-%05d/%s", dir, name);
+          contents[index] = ("file " + i + "\n").getBytes(StandardCharsets.UTF_8);
+          blobs[index] = inserter.insert(Constants.OBJ_BLOB, contents[index]);
+          tree.append(name, FileMode.REGULAR_FILE, blobs[index]);
+        }
+        src.append(String.format("dir-%05d", dir), FileMode.TREE, inserter.insert(tree));
+      }
+      srcTree = files > 0 ? inserter.insert(src) : null;
+    }
+
+    private void update(int historyFile, String text) throws IOException {
+      contents[historyFile] = (text + "\n").getBytes(StandardCharsets.UTF_8);
+      blobs[historyFile] = inserter.insert(Constants.OBJ_BLOB, contents[historyFile]);
+    }
+
+    private ObjectId insertTree() throws IOException {
+      TreeFormatter history = new TreeFormatter();
+      for (int i = 0; i <= HISTORY_FILES; i++) {
+        history.append(paths[i].substring("history/".length()), FileMode.REGULAR_FILE, blobs[i]);
+      }
+      TreeFormatter root = new TreeFormatter();
+      root.append("history", FileMode.TREE, inserter.insert(history));
+      if (srcTree != null) {
+        root.append("src", FileMode.TREE, srcTree);
+      }
+      return inserter.insert(root);
+    }
+  }
+
+  /**
+   * Generates a repository from the command line.
+   *
+   * @param args The options (e.g. {@code --commits 100000}) followed by the target directory
+   * @throws Exception if the repository could not be generated
+   */
+  public static void main(String[] args) throws Exception {
+    // the collision detection of JGit's SHA-1 is not needed for the objects we generate ourselves
+    if (System.getProperty("org.eclipse.jgit.util.sha1.implementation") == null) {
+      System.setProperty("org.eclipse.jgit.util.sha1.implementation", "jdkNative");
+    }
+    SyntheticRepositoryGenerator generator = new SyntheticRepositoryGenerator();
+    File directory = null;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--commits":
+          generator.withCommits(Integer.parseInt(args[++i]));
+          break;
+        case "--tags":
+          generator.withTags(Integer.parseInt(args[++i]));
+          break;
+        case "--branches":
+          generator.withBranches(Integer.parseInt(args[++i]));
+          break;
+        case "--merge-every":
+          generator.withMergeEvery(Integer.parseInt(args[++i]));
+          break;
+        case "--files":
+          generator.withFiles(Integer.parseInt(args[++i]));
+          break;
+        case "--untracked-files":
+          generator.withUntrackedFiles(Integer.parseInt(args[++i]));
+          break;
+        default:
+          directory = new File(args[i]);
+      }
+    }
+    if (directory == null) {
+      System.err.println(
+          "Usage: SyntheticRepositoryGenerator [--commits n] [--tags n] [--branches n]"
+              + " [--merge-every n] [--files n] [--untracked-files n] <directory>");
+      System.exit(1);
+    }
+    long start = System.nanoTime();
+    generator.generate(directory.toPath());
+    System.out.printf(
+        "Generated %s in %d ms%n", directory, (System.nanoTime() - start) / 1_000_000);
+  }
+}
@@ -0,0 +1,561 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.InflaterInputStream;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import pl.project13.core.GitCommitPropertyConstant;
+import pl.project13.core.PropertiesFilterer;
+import pl.project13.core.log.LogInterface;
+import pl.project13.core.util.GitDirLocator;
+import pl.project13.maven.git.GitCommitIdPluginRunner.GitDataLoader;
+
+/**
+ * A reader for the <a
+ * href="https://git-scm.com/docs/gitformat-commit-graph">commit-graph</a> of a repository ({@code
+ * objects/info/commit-graph} or a split chain under {@code objects/info/commit-graphs}).
+ *
+ * <p>The commit-graph stores the parents of every commit in a table that is indexed by the
+ * position of the commit, hence the history can be walked without inflating a single commit
+ * object. Commits that were created after the commit-graph was written are read from their loose
+ * objects. Whenever a reachable commit is neither part of the commit-graph nor a loose object
+ * (e.g. it was packed without updating the commit-graph) the reader gives up and lets the
+ * git-commit-id-plugin-core walk the history as usual.
+ */
+final class CommitGraph {
+  private static final int SIGNATURE = 0x43475048; // "CGPH"
+  private static final int CHUNK_OID_FANOUT = 0x4f494446; // "OIDF"
+  private static final int CHUNK_OID_LOOKUP = 0x4f49444c; // "OIDL"
+  private static final int CHUNK_COMMIT_DATA = 0x43444154; // "CDAT"
+  private static final int CHUNK_EXTRA_EDGES = 0x45444745; // "EDGE"
+  private static final int HEADER_LENGTH = 8;
+  private static final int CHUNK_TABLE_ENTRY_LENGTH = 12;
+  private static final int PARENT_NONE = 0x70000000;
+  private static final int EXTRA_EDGES_MASK = 0x80000000;
+
+  private final List<Layer> layers;
+  private final int hashLength;
+  private final int size;
+
+  private CommitGraph(@NonNull List<Layer> layers) {
+    this.layers = layers;
+    this.hashLength = layers.get(0).hashLength;
+    Layer top = layers.get(layers.size() - 1);
+    this.size = top.base + top.size;
+  }
+
+  /**
+   * Wraps the given {@link GitDataLoader} so that {@code git.total.commit.count} is computed from
+   * the commit-graph whenever the repository has one. Everything else (and the commit count, if
+   * the commit-graph can't be used, e.g. for {@code perModuleVersions}) is left to the given
+   * {@link GitDataLoader}.
+   *
+   * @param delegate The {@link GitDataLoader} that computes the git data
+   * @param log The logger to log any messages
+   * @return A {@link GitDataLoader} that counts the commits using the commit-graph
+   */
+  static GitDataLoader wrap(@NonNull GitDataLoader delegate, @NonNull LogInterface log) {
+    return (cb, properties) -> {
+      String key = cb.getPrefixDot() + GitCommitPropertyConstant.TOTAL_COMMIT_COUNT;
+      // with perModuleVersions only the commits that touch the module are counted
+      if (!cb.isPerModuleVersions()
+          && !properties.containsKey(key)
+          && PropertiesFilterer.isIncluded(
+              key, cb.getIncludeOnlyProperties(), cb.getExcludeProperties())) {
+        File dotGitDirectory =
+            new GitDirLocator(
+                    cb.getProjectBaseDir(), cb.useNativeGit(), cb.shouldFailOnNoGitDirectory())
+                .lookupGitDirectory(cb.getDotGitDirectory());
+        if (dotGitDirectory != null) {
+          FlightRecorderEvents.Span span = FlightRecorderEvents.beginGitOperation();
+          String count;
+          try {
+            count = countCommits(dotGitDirectory.toPath(), cb.getEvaluateOnCommit(), log);
+          } finally {
+            span.end("commit-graph commit count");
+          }
+          if (count != null) {
+            properties.setProperty(key, count);
+          }
+        }
+      }
+      delegate.loadGitData(cb, properties);
+    };
+  }
+
+  /**
+   * Counts the commits that are reachable from the given commit (like {@code git rev-list --count
+   * <commit>}) using the commit-graph.
+   *
+   * @param gitDir The git directory (e.g. {@code .git}) of the repository
+   * @param evaluateOnCommit Either {@code HEAD} or the full id of a commit
+   * @param log The logger to log any messages
+   * @return The number of commits, or {@code null} if the commits can't be counted using the
+   *     commit-graph
+   */
+  @Nullable
+  static String countCommits(
+      @NonNull Path gitDir, @Nullable String evaluateOnCommit, @NonNull LogInterface log) {
+    try {
+      Path commonDir = RepositoryFingerprint.resolveCommonDir(gitDir);
+      if (RepositoryFingerprint.isHistoryRewritten(commonDir)) {
+        // the commit-graph doesn't know about grafts, replace refs or a shallow history
+        return null;
+      }
+      String commit = RepositoryFingerprint.resolveCommit(gitDir, evaluateOnCommit);
+      if (commit == null) {
+        return null;
+      }
+      Path objectsDir = commonDir.resolve("objects");
+      CommitGraph graph = read(objectsDir);
+      if (graph == null || commit.length() != graph.hashLength * 2) {
+        return null;
+      }
+      long start = System.nanoTime();
+      long count = graph.countReachable(commit, objectsDir);
+      if (count < 0) {
+        log.info(
+            "The commit-graph doesn't cover the history of "
+                + commit
+                + ", walking the history instead");
+        return null;
+      }
+      log.info(
+          String.format(
+              Locale.ROOT,
+              "Counted %d commits using the commit-graph in %d ms",
+              count,
+              (System.nanoTime() - start) / 1_000_000));
+      return String.valueOf(count);
+    } catch (IOException | RuntimeException e) {
+      log.warn("Unable to use the commit-graph, walking the history instead: " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Reads the commit-graph (either a single file or a chain of split commit-graphs) of the given
+   * object directory.
+   *
+   * @param objectsDir The object directory (e.g. {@code .git/objects}) of the repository
+   * @return The commit-graph, or {@code null} if the repository has none
+   * @throws IOException if the commit-graph could not be read or is corrupt
+   */
+  @Nullable
+  static CommitGraph read(@NonNull Path objectsDir) throws IOException {
+    Path info = objectsDir.resolve("info");
+    List<Path> files = new ArrayList<>();
+    Path chain = info.resolve("commit-graphs").resolve("commit-graph-chain");
+    if (Files.isRegularFile(chain)) {
+      for (String line : Files.readAllLines(chain, StandardCharsets.UTF_8)) {
+        if (!line.trim().isEmpty()) {
+          files.add(chain.resolveSibling("graph-" + line.trim() + ".graph"));
+        }
+      }
+    } else if (Files.isRegularFile(info.resolve("commit-graph"))) {
+      files.add(info.resolve("commit-graph"));
+    }
+    if (files.isEmpty()) {
+      return null;
+    }
+
+    // base layer first, the positions of a layer continue where its base left off
+    List<Layer> layers = new ArrayList<>(files.size());
+    int base = 0;
+    for (Path file : files) {
+      Layer layer = Layer.read(file, base);
+      if (!layers.isEmpty() && layer.hashLength != layers.get(0).hashLength) {
+        throw new IOException("Mixed hash algorithms in commit-graph chain: " + file);
+      }
+      layers.add(layer);
+      base += layer.size;
+    }
+    return new CommitGraph(Collections.unmodifiableList(layers));
+  }
+
+  /**
+   * Counts the commits that are reachable from the given commit (including the commit itself).
+   *
+   * @param commit The full id of the commit to start from
+   * @param objectsDir The object directory to read commits from that are missing in the
+   *     commit-graph
+   * @return The number of reachable commits, or {@code -1} if a reachable commit is neither part
+   *     of the commit-graph nor a loose object
+   * @throws IOException if a commit could not be read
+   */
+  long countReachable(@NonNull String commit, @NonNull Path objectsDir) throws IOException {
+    BitSet seen = new BitSet(size);
+    int[] stack = new int[64];
+    int depth = 0;
+    int[] parents = new int[2];
+    // commits that are (not yet known to be) part of the commit-graph
+    Deque<String> loose = new ArrayDeque<>();
+    Set<String> seenLoose = new HashSet<>();
+    loose.push(commit);
+    while (depth > 0 || !loose.isEmpty()) {
+      if (depth == 0) {
+        String id = loose.pop();
+        int position = findPosition(id);
+        if (position >= 0) {
+          if (!seen.get(position)) {
+            seen.set(position);
+            stack[depth++] = position;
+          }
+        } else if (seenLoose.add(id)) {
+          List<String> looseParents = readLooseParents(objectsDir, id);
+          if (looseParents == null) {
+            return -1;
+          }
+          looseParents.forEach(loose::push);
+        }
+        continue;
+      }
+      int position = stack[--depth];
+      int parentCount = parentsOf(position, parents);
+      if (parentCount > parents.length) {
+        parents = new int[parentCount];
+        parentsOf(position, parents);
+      }
+      for (int i = 0; i < parentCount; i++) {
+        if (!seen.get(parents[i])) {
+          seen.set(parents[i]);
+          if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+          }
+          stack[depth++] = parents[i];
+        }
+      }
+    }
+    return (long) seen.cardinality() + seenLoose.size();
+  }
+
+  /**
+   * Looks up the position of the given commit in the commit-graph.
+   *
+   * @param commit The full id of the commit
+   * @return The position of the commit, or {@code -1} if the commit is not part of the
+   *     commit-graph
+   */
+  int findPosition(@NonNull String commit) {
+    byte[] id = toBytes(commit);
+    if (id.length != hashLength) {
+      return -1;
+    }
+    for (Layer layer : layers) {
+      int position = layer.find(id);
+      if (position >= 0) {
+        return layer.base + position;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Writes the positions of the parents of the commit at the given position into the given array.
+   *
+   * @return The number of parents, if it is larger than the array only the first parents are
+   *     written
+   */
+  private int parentsOf(int position, int[] parents) throws IOException {
+    Layer layer = layers.get(layers.size() - 1);
+    for (int i = layers.size() - 1; layer.base > position; i--) {
+      layer = layers.get(i - 1);
+    }
+    int offset = (position - layer.base) * (hashLength + 16) + hashLength;
+    int first = layer.commitData.getInt(offset);
+    int second = layer.commitData.getInt(offset + 4);
+    if (first == PARENT_NONE) {
+      return 0;
+    }
+    int count = addParent(parents, 0, first);
+    if (second == PARENT_NONE) {
+      return count;
+    }
+    if ((second & EXTRA_EDGES_MASK) == 0) {
+      return addParent(parents, count, second);
+    }
+    if (layer.extraEdges == null) {
+      throw new IOException("Octopus merge without extra edges in commit-graph");
+    }
+    int edge = (second & ~EXTRA_EDGES_MASK) * 4;
+    while (true) {
+      if (edge + 4 > layer.extraEdges.limit()) {
+        throw new IOException("Invalid extra edge in commit-graph");
+      }
+      int parent = layer.extraEdges.getInt(edge);
+      count = addParent(parents, count, parent & ~EXTRA_EDGES_MASK);
+      if ((parent & EXTRA_EDGES_MASK) != 0) {
+        return count;
+      }
+      edge += 4;
+    }
+  }
+
+  private int addParent(int[] parents, int count, int parent) throws IOException {
+    if (parent < 0 || parent >= size) {
+      throw new IOException("Invalid parent position " + parent + " in commit-graph");
+    }
+    if (count < parents.length) {
+      parents[count] = parent;
+    }
+    return count + 1;
+  }
+
+  /**
+   * Reads the parents of a commit that is stored as loose object.
+   *
+   * @return The ids of the parents, or {@code null} if the commit is not a loose object
+   */
+  @Nullable
+  private static List<String> readLooseParents(@NonNull Path objectsDir, @NonNull String commit)
+      throws IOException {
+    Path file = objectsDir.resolve(commit.substring(0, 2)).resolve(commit.substring(2));
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    try (InputStream in =
+        new BufferedInputStream(new InflaterInputStream(Files.newInputStream(file)))) {
+      String header = readUntil(in, '\0');
+      if (header == null || !header.startsWith("commit ")) {
+        throw new IOException("Not a commit: " + commit);
+      }
+      List<String> parents = new ArrayList<>();
+      String line;
+      while ((line = readUntil(in, '\n')) != null && !line.isEmpty()) {
+        if (line.startsWith("parent ")) {
+          parents.add(line.substring("parent ".length()));
+        } else if (!line.startsWith("tree ")) {
+          // the parents always directly follow the tree
+          break;
+        }
+      }
+      return parents;
+    }
+  }
+
+  @Nullable
+  private static String readUntil(@NonNull InputStream in, char delimiter) throws IOException {
+    StringBuilder result = new StringBuilder();
+    int c;
+    while ((c = in.read()) != delimiter) {
+      if (c < 0) {
+        return result.length() == 0 ? null : result.toString();
+      }
+      result.append((char) c);
+    }
+    return result.toString();
+  }
+
+  private static byte[] toBytes(@NonNull String hex) {
+    byte[] bytes = new byte[hex.length() / 2];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] =
+          (byte)
+              ((Character.digit(hex.charAt(2 * i), 16) << 4)
+                  | Character.digit(hex.charAt(2 * i + 1), 16));
+    }
+    return bytes;
+  }
+
+  /**
+   * A single commit-graph file. Only the chunks that are needed to walk the history are read (into
+   * the heap, so that the file is not held open or mapped once it was read).
+   */
+  private static final class Layer {
+    private final int base;
+    private final int size;
+    private final int hashLength;
+    private final ByteBuffer fanout;
+    private final ByteBuffer lookup;
+    private final ByteBuffer commitData;
+    @Nullable private final ByteBuffer extraEdges;
+
+    private Layer(
+        int base,
+        int size,
+        int hashLength,
+        @NonNull ByteBuffer fanout,
+        @NonNull ByteBuffer lookup,
+        @NonNull ByteBuffer commitData,
+        @Nullable ByteBuffer extraEdges) {
+      this.base = base;
+      this.size = size;
+      this.hashLength = hashLength;
+      this.fanout = fanout;
+      this.lookup = lookup;
+      this.commitData = commitData;
+      this.extraEdges = extraEdges;
+    }
+
+    @NonNull
+    static Layer read(@NonNull Path file, int base) throws IOException {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+        long length = channel.size();
+        if (length < HEADER_LENGTH) {
+          throw new IOException("Not a commit-graph file: " + file);
+        }
+        ByteBuffer header = read(channel, file, 0, HEADER_LENGTH);
+        if (header.getInt(0) != SIGNATURE) {
+          throw new IOException("Not a commit-graph file: " + file);
+        }
+        if (header.get(4) != 1) {
+          throw new IOException("Unsupported commit-graph version " + header.get(4) + ": " + file);
+        }
+        int hashLength;
+        if (header.get(5) == 1) {
+          hashLength = 20;
+        } else if (header.get(5) == 2) {
+          hashLength = 32;
+        } else {
+          throw new IOException("Unsupported hash version " + header.get(5) + ": " + file);
+        }
+
+        // the table of contents ends with an entry that marks the end of the last chunk
+        int chunks = header.get(6) & 0xff;
+        ByteBuffer table =
+            read(channel, file, HEADER_LENGTH, (chunks + 1) * CHUNK_TABLE_ENTRY_LENGTH);
+        long[] offsets = new long[chunks + 1];
+        for (int i = 0; i <= chunks; i++) {
+          offsets[i] = table.getLong(i * CHUNK_TABLE_ENTRY_LENGTH + 4);
+          if (offsets[i] < 0 || offsets[i] > length) {
+            throw new IOException("Invalid chunk offset in commit-graph file: " + file);
+          }
+        }
+        long fanoutOffset = -1;
+        long lookupOffset = -1;
+        long commitDataOffset = -1;
+        long extraEdgesOffset = -1;
+        for (int i = 0; i < chunks; i++) {
+          switch (table.getInt(i * CHUNK_TABLE_ENTRY_LENGTH)) {
+            case CHUNK_OID_FANOUT:
+              fanoutOffset = offsets[i];
+              break;
+            case CHUNK_OID_LOOKUP:
+              lookupOffset = offsets[i];
+              break;
+            case CHUNK_COMMIT_DATA:
+              commitDataOffset = offsets[i];
+              break;
+            case CHUNK_EXTRA_EDGES:
+              extraEdgesOffset = offsets[i];
+              break;
+            default:
+              // e.g. generation data or bloom filters, which are not needed to count commits
+              break;
+          }
+        }
+        if (fanoutOffset < 0 || lookupOffset < 0 || commitDataOffset < 0) {
+          throw new IOException("Missing required chunk in commit-graph file: " + file);
+        }
+
+        ByteBuffer fanout = read(channel, file, fanoutOffset, 256 * 4);
+        int size = fanout.getInt(255 * 4);
+        if (size < 0) {
+          throw new IOException("Truncated commit-graph file: " + file);
+        }
+        ByteBuffer extraEdges = null;
+        if (extraEdgesOffset >= 0) {
+          long end = length;
+          for (long offset : offsets) {
+            if (offset > extraEdgesOffset && offset < end) {
+              end = offset;
+            }
+          }
+          extraEdges = read(channel, file, extraEdgesOffset, end - extraEdgesOffset);
+        }
+        return new Layer(
+            base,
+            size,
+            hashLength,
+            fanout,
+            read(channel, file, lookupOffset, (long) size * hashLength),
+            read(channel, file, commitDataOffset, (long) size * (hashLength + 16)),
+            extraEdges);
+      }
+    }
+
+    /** Reads the given range of the file into a buffer on the heap. */
+    @NonNull
+    private static ByteBuffer read(
+        @NonNull FileChannel channel, @NonNull Path file, long offset, long length)
+        throws IOException {
+      if (offset + length > channel.size() || length > Integer.MAX_VALUE) {
+        throw new IOException("Truncated commit-graph file: " + file);
+      }
+      ByteBuffer buffer = ByteBuffer.allocate((int) length);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, offset + buffer.position()) < 0) {
+          throw new IOException("Truncated commit-graph file: " + file);
+        }
+      }
+      buffer.flip();
+      return buffer;
+    }
+
+    /** Binary search of the id within the commits that share its first byte. */
+    int find(byte[] id) {
+      int first = id[0] & 0xff;
+      int low = first == 0 ? 0 : fanout.getInt((first - 1) * 4);
+      int high = fanout.getInt(first * 4) - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        int cmp = compare(id, mid * hashLength);
+        if (cmp == 0) {
+          return mid;
+        } else if (cmp < 0) {
+          high = mid - 1;
+        } else {
+          low = mid + 1;
+        }
+      }
+      return -1;
+    }
+
+    private int compare(byte[] id, int offset) {
+      for (int i = 0; i < hashLength; i++) {
+        int diff = (id[i] & 0xff) - (lookup.get(offset + i) & 0xff);
+        if (diff != 0) {
+          return diff;
+        }
+      }
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,590 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.IndexDiff;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import pl.project13.core.GitCommitIdExecutionException;
+import pl.project13.core.GitCommitIdPlugin;
+import pl.project13.core.GitCommitPropertyConstant;
+import pl.project13.core.PropertiesFilterer;
+import pl.project13.core.log.LogInterface;
+import pl.project13.core.util.GitDirLocator;
+import pl.project13.maven.git.GitCommitIdPluginRunner.GitDataLoader;
+
+/**
+ * Computes {@code git.dirty} with a cheaper check than the full status of the working tree the
+ * git-commit-id-plugin-core performs. Since only the answer whether there is any change at all is
+ * of interest, every check stops as soon as it found the first change. The default (full) mode is
+ * left to the core, unless the working tree should be compared in parallel.
+ */
+final class DirtyCheck {
+  /** The position of the working tree inside the tree walk of {@link #hasTrackedChanges}. */
+  private static final int WORK_TREE = 2;
+
+  /** The modes of the dirty check. */
+  enum Mode {
+    /** A full status of the working tree (including the scan for untracked files). */
+    FULL,
+    /**
+     * Only changes of tracked files (staged or not) are considered. Untracked files are not
+     * scanned at all.
+     */
+    TRACKED_ONLY,
+    /**
+     * Only staged changes (the index compared to {@code HEAD}) are considered. The working tree
+     * is not scanned at all.
+     */
+    INDEX_ONLY,
+    /** {@code git.dirty} is not computed at all. */
+    DISABLED;
+
+    /**
+     * Parses the mode as configured in the pom (e.g. {@code tracked-only}).
+     *
+     * @param mode The configured mode
+     * @return The mode
+     * @throws IllegalArgumentException if the mode is unknown
+     */
+    @NonNull
+    static Mode parse(@NonNull String mode) {
+      return valueOf(mode.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+  }
+
+  private DirtyCheck() {}
+
+  /**
+   * Wraps the given {@link GitDataLoader} so that {@code git.dirty} is computed with the given
+   * mode. Everything else is left to the given {@link GitDataLoader}.
+   *
+   * @param delegate The {@link GitDataLoader} that computes the git data
+   * @param mode The mode of the dirty check
+   * @param parallel {@code true} if JGit should compare the working tree to the index in
+   *     parallel (see {@link ParallelDirtyCheck})
+   * @param log The logger to log any messages
+   * @return A {@link GitDataLoader} that computes {@code git.dirty} with the given mode
+   */
+  static GitDataLoader wrap(
+      @NonNull GitDataLoader delegate,
+      @NonNull Mode mode,
+      boolean parallel,
+      @NonNull LogInterface log) {
+    if (mode == Mode.DISABLED || (mode == Mode.FULL && !parallel)) {
+      // the core performs the full check, disabled is handled by excluding git.dirty
+      return delegate;
+    }
+    LazyLogInterface lazyLog = LazyLogInterface.of(log);
+    return (cb, properties) -> {
+      String key = cb.getPrefixDot() + GitCommitPropertyConstant.DIRTY;
+      // the parallel check is JGit only, the full check of native git is left to the core
+      if ((mode != Mode.FULL || !cb.useNativeGit())
+          && !properties.containsKey(key)
+          && PropertiesFilterer.isIncluded(
+              key, cb.getIncludeOnlyProperties(), cb.getExcludeProperties())) {
+        File dotGitDirectory =
+            new GitDirLocator(
+                    cb.getProjectBaseDir(), cb.useNativeGit(), cb.shouldFailOnNoGitDirectory())
+                .lookupGitDirectory(cb.getDotGitDirectory());
+        if (dotGitDirectory != null) {
+          long start = System.nanoTime();
+          boolean dirty = isDirty(cb, dotGitDirectory, mode, parallel);
+          long took = (System.nanoTime() - start) / 1_000_000;
+          boolean parallelCheck = parallel && !cb.useNativeGit() && mode != Mode.INDEX_ONLY;
+          lazyLog.debug(
+              () ->
+                  String.format(
+                      Locale.ROOT,
+                      "Performed the %s%s dirty check in %d ms",
+                      parallelCheck ? "parallel " : "",
+                      mode.name().toLowerCase(Locale.ROOT).replace('_', '-'),
+                      took));
+          properties.setProperty(key, String.valueOf(dirty));
+        }
+      }
+      delegate.loadGitData(cb, properties);
+    };
+  }
+
+  /**
+   * Performs the dirty check with native git or JGit, just like the execution described by the
+   * given callback would.
+   *
+   * @param cb The callback that holds the configuration of the current execution
+   * @param dotGitDirectory The git directory of the repository
+   * @param mode The mode of the dirty check
+   * @param parallel {@code true} if JGit should compare the working tree to the index in parallel
+   * @return {@code true} if the repository is dirty
+   * @throws GitCommitIdExecutionException if the dirty check could not be performed
+   */
+  static boolean isDirty(
+      GitCommitIdPlugin.@NonNull Callback cb,
+      @NonNull File dotGitDirectory,
+      @NonNull Mode mode,
+      boolean parallel)
+      throws GitCommitIdExecutionException {
+    FlightRecorderEvents.Span span = FlightRecorderEvents.beginGitOperation();
+    try {
+      return cb.useNativeGit()
+          ? isDirtyNative(
+              dotGitDirectory,
+              cb.getProjectBaseDir(),
+              cb.isPerModuleVersions(),
+              cb.getNativeGitTimeoutInMs(),
+              mode)
+          : isDirtyJGit(
+              dotGitDirectory, cb.getProjectBaseDir(), cb.isPerModuleVersions(), mode, parallel);
+    } finally {
+      span.end(
+          String.format(
+              Locale.ROOT,
+              "%s%s dirty check with %s",
+              parallel && !cb.useNativeGit() && mode != Mode.INDEX_ONLY ? "parallel " : "",
+              mode.name().toLowerCase(Locale.ROOT).replace('_', '-'),
+              cb.useNativeGit() ? "native git" : "JGit"));
+    }
+  }
+
+  /**
+   * Performs the dirty check with JGit.
+   *
+   * <p>The full check of JGit ignores untracked files (only native git considers them), thus the
+   * full mode yields the same result as the tracked-only mode.
+   *
+   * @param dotGitDirectory The git directory of the repository
+   * @param projectBaseDir The base directory of the project
+   * @param perModuleVersions Whether only the changes inside the project should be considered
+   * @param mode The mode of the dirty check
+   * @param parallel {@code true} if the working tree should be compared to the index in parallel
+   * @return {@code true} if the repository is dirty
+   * @throws GitCommitIdExecutionException if the repository could not be read
+   */
+  static boolean isDirtyJGit(
+      @NonNull File dotGitDirectory,
+      @NonNull File projectBaseDir,
+      boolean perModuleVersions,
+      @NonNull Mode mode,
+      boolean parallel)
+      throws GitCommitIdExecutionException {
+    try (Repository repository =
+        new FileRepositoryBuilder().setGitDir(dotGitDirectory).readEnvironment().build()) {
+      String pathFilter =
+          perModuleVersions ? relativeModulePath(repository.getWorkTree(), projectBaseDir) : null;
+      if (mode == Mode.INDEX_ONLY) {
+        return hasStagedChanges(repository, pathFilter);
+      }
+      if (parallel) {
+        return hasStagedChanges(repository, pathFilter)
+            || ParallelDirtyCheck.isWorkTreeModified(repository, pathFilter);
+      }
+      return hasTrackedChanges(
+          repository, pathFilter == null ? null : PathFilter.create(pathFilter));
+    } catch (IOException e) {
+      throw new GitCommitIdExecutionException("Unable to perform the dirty check", e);
+    }
+  }
+
+  /**
+   * Walks {@code HEAD}, the index and the working tree at once and stops at the first tracked
+   * entry that differs. This considers the same changes as the full check of the core (added,
+   * changed, removed, missing, modified and conflicting entries) without computing all of them.
+   *
+   * @param repository The repository
+   * @param filter The filter that restricts the entries to check, or {@code null} to check all
+   *     entries
+   * @return {@code true} if a tracked entry was changed
+   * @throws IOException if the repository could not be read
+   */
+  static boolean hasTrackedChanges(@NonNull Repository repository, @Nullable TreeFilter filter)
+      throws IOException {
+    List<String> submodules = new ArrayList<>();
+    try (TreeWalk walk = new TreeWalk(repository);
+        RevWalk revWalk = new RevWalk(repository)) {
+      walk.setOperationType(TreeWalk.OperationType.CHECKIN_OP);
+      walk.setRecursive(true);
+      addHeadTree(repository, walk, revWalk);
+      walk.addTree(new DirCacheIterator(repository.readDirCache()));
+      FileTreeIterator workTree = new FileTreeIterator(repository);
+      workTree.setDirCacheIterator(walk, TrackedOnlyFilter.INDEX);
+      walk.addTree(workTree);
+      TreeFilter trackedOnly = new TrackedOnlyFilter();
+      walk.setFilter(filter == null ? trackedOnly : AndTreeFilter.create(filter, trackedOnly));
+
+      while (walk.next()) {
+        DirCacheIterator index = walk.getTree(TrackedOnlyFilter.INDEX, DirCacheIterator.class);
+        if (index == null) {
+          // removed from the index
+          return true;
+        }
+        DirCacheEntry entry = index.getDirCacheEntry();
+        if (entry.getStage() != DirCacheEntry.STAGE_0
+            || walk.getRawMode(TrackedOnlyFilter.TREE) != walk.getRawMode(TrackedOnlyFilter.INDEX)
+            || !walk.idEqual(TrackedOnlyFilter.TREE, TrackedOnlyFilter.INDEX)) {
+          // conflicting or staged
+          return true;
+        }
+        if (entry.isAssumeValid() || entry.isSkipWorkTree()) {
+          continue;
+        }
+        FileTreeIterator file = walk.getTree(WORK_TREE, FileTreeIterator.class);
+        if (file == null) {
+          // missing
+          return true;
+        }
+        if (entry.getFileMode() == FileMode.GITLINK) {
+          // the state of a submodule needs a status of the submodule itself
+          submodules.add(entry.getPathString());
+        } else if (file.isModified(entry, true, walk.getObjectReader())) {
+          return true;
+        }
+      }
+    }
+    return !submodules.isEmpty() && hasModifiedSubmodules(repository, submodules);
+  }
+
+  private static boolean hasModifiedSubmodules(
+      @NonNull Repository repository, @NonNull List<String> submodules) throws IOException {
+    IndexDiff indexDiff =
+        new IndexDiff(repository, Constants.HEAD, new FileTreeIterator(repository));
+    indexDiff.setFilter(PathFilterGroup.createFromStrings(submodules));
+    indexDiff.diff();
+    return !indexDiff.getModified().isEmpty() || !indexDiff.getMissing().isEmpty();
+  }
+
+  private static void addHeadTree(
+      @NonNull Repository repository, @NonNull TreeWalk walk, @NonNull RevWalk revWalk)
+      throws IOException {
+    ObjectId head = repository.resolve(Constants.HEAD);
+    if (head == null) {
+      walk.addTree(new EmptyTreeIterator());
+    } else {
+      CanonicalTreeParser tree = new CanonicalTreeParser();
+      tree.reset(walk.getObjectReader(), revWalk.parseCommit(head).getTree());
+      walk.addTree(tree);
+    }
+  }
+
+  static boolean hasStagedChanges(
+      @NonNull Repository repository, @Nullable String pathFilter) throws IOException {
+    try (TreeWalk walk = new TreeWalk(repository);
+        RevWalk revWalk = new RevWalk(repository)) {
+      walk.setRecursive(true);
+      addHeadTree(repository, walk, revWalk);
+      walk.addTree(new DirCacheIterator(repository.readDirCache()));
+      walk.setFilter(
+          pathFilter == null
+              ? TreeFilter.ANY_DIFF
+              : AndTreeFilter.create(PathFilter.create(pathFilter), TreeFilter.ANY_DIFF));
+      return walk.next();
+    }
+  }
+
+  @Nullable
+  private static String relativeModulePath(@NonNull File workTree, @NonNull File projectBaseDir) {
+    String path =
+        workTree
+            .toPath()
+            .toAbsolutePath()
+            .normalize()
+            .relativize(projectBaseDir.toPath().toAbsolutePath().normalize())
+            .toString()
+            .replace(File.separatorChar, '/');
+    return path.isEmpty() ? null : path;
+  }
+
+  /**
+   * Performs the dirty check with the native git binary. Instead of a full {@code git status} the
+   * check is split into steps that are performed from the cheapest to the most expensive one, each
+   * of them stops at the first change it finds:
+   *
+   * <p>Just like the core the commands run against the given git directory (and its working tree),
+   * not against the repository the base directory of the project belongs to.
+   *
+   * <ol>
+   *   <li>staged changes ({@code git diff --cached --quiet}), on an unborn branch every entry of
+   *       the index counts as staged
+   *   <li>unstaged changes of tracked files ({@code git diff --quiet})
+   *   <li>untracked files ({@code git ls-files --others --exclude-standard --directory}), the
+   *       output is only read until the first untracked file shows up
+   * </ol>
+   *
+   * <p>Note: {@link #wrap} leaves the full mode of native git to the core, the untracked files are
+   * only checked when this method is called directly.
+   *
+   * @param dotGitDirectory The git directory of the repository
+   * @param projectBaseDir The base directory of the project
+   * @param perModuleVersions Whether only the changes inside the project should be considered
+   * @param timeoutInMs The timeout of every single git command
+   * @param mode The mode of the dirty check
+   * @return {@code true} if the repository is dirty
+   * @throws GitCommitIdExecutionException if git could not be executed
+   */
+  static boolean isDirtyNative(
+      @NonNull File dotGitDirectory,
+      @NonNull File projectBaseDir,
+      boolean perModuleVersions,
+      long timeoutInMs,
+      @NonNull Mode mode)
+      throws GitCommitIdExecutionException {
+    NativeGit git = new NativeGit(dotGitDirectory, projectBaseDir, perModuleVersions, timeoutInMs);
+    if (git.hasStagedChanges()) {
+      return true;
+    }
+    if (mode == Mode.INDEX_ONLY) {
+      return false;
+    }
+    if (git.hasDifferences("diff", "--quiet")) {
+      return true;
+    }
+    if (mode == Mode.TRACKED_ONLY) {
+      return false;
+    }
+    return git.hasOutput(
+        "ls-files", "--others", "--exclude-standard", "--directory", "--no-empty-directory");
+  }
+
+  /** Runs the commands of the dirty check with the native git binary. */
+  private static final class NativeGit {
+    private final File dotGitDirectory;
+    @Nullable private final File workTree;
+    private final File directory;
+    @Nullable private final String pathFilter;
+    private final long timeoutInMs;
+    private FlightRecorderEvents.CommandSpan commandSpan;
+
+    NativeGit(
+        @NonNull File dotGitDirectory,
+        @NonNull File projectBaseDir,
+        boolean perModuleVersions,
+        long timeoutInMs)
+        throws GitCommitIdExecutionException {
+      this.dotGitDirectory = dotGitDirectory;
+      this.workTree = workTreeOf(dotGitDirectory);
+      this.timeoutInMs = timeoutInMs;
+      if (workTree == null) {
+        // e.g. a linked worktree, let git find the repository from the project
+        this.directory = projectBaseDir;
+        this.pathFilter = perModuleVersions ? "." : null;
+      } else {
+        this.directory = workTree;
+        this.pathFilter = perModuleVersions ? relativeModulePath(workTree, projectBaseDir) : null;
+      }
+    }
+
+    @Nullable
+    private static File workTreeOf(@NonNull File dotGitDirectory)
+        throws GitCommitIdExecutionException {
+      try {
+        FileRepositoryBuilder builder =
+            new FileRepositoryBuilder().setGitDir(dotGitDirectory).readEnvironment().setup();
+        return builder.isBare() ? null : builder.getWorkTree();
+      } catch (IOException e) {
+        throw new GitCommitIdExecutionException("Unable to perform the dirty check", e);
+      }
+    }
+
+    /** Checks whether the index differs from {@code HEAD}. */
+    private boolean hasStagedChanges() throws GitCommitIdExecutionException {
+      try {
+        return hasDifferences("diff", "--cached", "--quiet");
+      } catch (GitCommitIdExecutionException e) {
+        if (hasHead()) {
+          throw e;
+        }
+        // older versions of git can't compare the index of an unborn branch to HEAD, but then
+        // every entry of the index is a staged change
+        return hasOutput("ls-files", "--cached");
+      }
+    }
+
+    private boolean hasHead() throws GitCommitIdExecutionException {
+      List<String> command = command(false, "rev-parse", "--verify", "--quiet", "HEAD");
+      Process process = start(command);
+      readOutput(process, command, Integer.MAX_VALUE);
+      return waitFor(process, command) == 0;
+    }
+
+    /** Runs a git command with {@code --quiet} that signals differences with the exit code 1. */
+    private boolean hasDifferences(@NonNull String... arguments)
+        throws GitCommitIdExecutionException {
+      List<String> command = command(true, arguments);
+      Process process = start(command);
+      String output = readOutput(process, command, Integer.MAX_VALUE);
+      int exitValue = waitFor(process, command);
+      if (exitValue != 0 && exitValue != 1) {
+        throw new GitCommitIdExecutionException(
+            "Unable to perform the dirty check ("
+                + String.join(" ", command)
+                + ", exit code "
+                + exitValue
+                + "): "
+                + output);
+      }
+      return exitValue == 1;
+    }
+
+    /** Runs a git command and stops it as soon as it printed anything. */
+    private boolean hasOutput(@NonNull String... arguments) throws GitCommitIdExecutionException {
+      List<String> command = command(true, arguments);
+      Process process = start(command);
+      if (!readOutput(process, command, 1).isEmpty()) {
+        process.destroy();
+        // reap the destroyed process
+        waitFor(process, command);
+        return true;
+      }
+      int exitValue = waitFor(process, command);
+      if (exitValue != 0) {
+        throw new GitCommitIdExecutionException(
+            "Unable to perform the dirty check ("
+                + String.join(" ", command)
+                + ", exit code "
+                + exitValue
+                + ")");
+      }
+      return false;
+    }
+
+    @NonNull
+    private List<String> command(boolean restrictToModule, @NonNull String... arguments) {
+      List<String> command = new ArrayList<>();
+      command.add("git");
+      if (workTree != null) {
+        command.add("--git-dir=" + dotGitDirectory.getAbsolutePath());
+        command.add("--work-tree=" + workTree.getAbsolutePath());
+      }
+      command.addAll(Arrays.asList(arguments));
+      if (restrictToModule && pathFilter != null) {
+        command.addAll(Arrays.asList("--", pathFilter));
+      }
+      return command;
+    }
+
+    @NonNull
+    private Process start(@NonNull List<String> command) throws GitCommitIdExecutionException {
+      try {
+        Process process =
+            new ProcessBuilder(command)
+                .directory(directory)
+                .redirectErrorStream(true)
+                .start();
+        commandSpan = FlightRecorderEvents.beginGitCommand(command);
+        process.getOutputStream().close();
+        return process;
+      } catch (IOException e) {
+        throw new GitCommitIdExecutionException("Unable to perform the dirty check", e);
+      }
+    }
+
+    /** Reads the output of the process until it ends or at least {@code limit} bytes were read. */
+    @NonNull
+    private String readOutput(@NonNull Process process, @NonNull List<String> command, int limit)
+        throws GitCommitIdExecutionException {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      try (InputStream in = process.getInputStream()) {
+        byte[] buffer = new byte[8192];
+        int read;
+        while (output.size() < limit && (read = in.read(buffer)) >= 0) {
+          output.write(buffer, 0, read);
+        }
+      } catch (IOException e) {
+        process.destroy();
+        // reap the destroyed process before the failure is reported
+        waitFor(process, command);
+        throw new GitCommitIdExecutionException(
+            "Unable to read the output of " + String.join(" ", command), e);
+      }
+      return new String(output.toByteArray(), StandardCharsets.UTF_8).trim();
+    }
+
+    private int waitFor(@NonNull Process process, @NonNull List<String> command)
+        throws GitCommitIdExecutionException {
+      try {
+        if (!process.waitFor(timeoutInMs, TimeUnit.MILLISECONDS)) {
+          process.destroyForcibly();
+          commandSpan.end(-1);
+          throw new GitCommitIdExecutionException(
+              "Timeout while performing the dirty check: " + String.join(" ", command));
+        }
+        commandSpan.end(process.exitValue());
+        return process.exitValue();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new GitCommitIdExecutionException("Interrupted while performing the dirty check", e);
+      }
+    }
+  }
+
+  /**
+   * Only includes entries that are part of {@code HEAD} or the index, so that untracked
+   * directories are never entered.
+   */
+  static final class TrackedOnlyFilter extends TreeFilter {
+    // the positions of the trees inside the tree walk (the same as in the IndexDiff)
+    static final int TREE = 0;
+    static final int INDEX = 1;
+
+    @Override
+    public boolean include(TreeWalk walker) {
+      return walker.getRawMode(TREE) != 0 || walker.getRawMode(INDEX) != 0;
+    }
+
+    @Override
+    public boolean shouldBeRecursive() {
+      return false;
+    }
+
+    @Override
+    public TreeFilter clone() {
+      return this;
+    }
+
+    @Override
+    public String toString() {
+      return "TRACKED_ONLY";
+    }
+  }
+}
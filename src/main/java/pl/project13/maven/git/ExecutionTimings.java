@@ -0,0 +1,217 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import org.jspecify.annotations.NonNull;
+import pl.project13.core.GitCommitIdExecutionException;
+import pl.project13.maven.git.GitCommitIdPluginRunner.GitDataLoader;
+
+/**
+ * Records how long the individual phases of an execution took.
+ *
+ * <p>The phases (e.g. loading the git data, the replacements or writing the properties file) are
+ * measured directly. The time spent on the individual git properties is measured at the boundary of
+ * the {@link GitDataLoader}, which sets every property right after it has been computed (or taken
+ * from a cache): the time between two properties is attributed to the latter one. The time to open
+ * the repository therefore shows up as part of the first property the loader sets.
+ *
+ * <p>All phases and properties are also recorded as {@link FlightRecorderEvents}.
+ */
+final class ExecutionTimings {
+  /** The name of the phase that loads the git data, which opens the repository. */
+  static final String LOAD_GIT_DATA = "loadGitData";
+
+  private final Map<String, Long> phases = new LinkedHashMap<>();
+  private final Map<String, Long> properties = new LinkedHashMap<>();
+  private final long start = System.nanoTime();
+  private long lastPropertyEvent = start;
+  private FlightRecorderEvents.Span propertySpan = FlightRecorderEvents.beginProperty();
+
+  /** A phase that should be measured. */
+  @FunctionalInterface
+  interface Phase {
+    /**
+     * Runs the phase.
+     *
+     * @throws GitCommitIdExecutionException if the phase failed
+     */
+    void run() throws GitCommitIdExecutionException;
+  }
+
+  /**
+   * Runs and measures the given phase. Phases with the same name are summed up.
+   *
+   * @param name The name of the phase
+   * @param phase The phase to run
+   * @throws GitCommitIdExecutionException if the phase failed
+   */
+  void time(@NonNull String name, @NonNull Phase phase) throws GitCommitIdExecutionException {
+    FlightRecorderEvents.Span phaseSpan = FlightRecorderEvents.beginPhase();
+    long phaseStart = System.nanoTime();
+    try {
+      phase.run();
+    } finally {
+      phaseSpan.end(name);
+      long duration = System.nanoTime() - phaseStart;
+      synchronized (this) {
+        phases.merge(name, duration, Long::sum);
+      }
+    }
+  }
+
+  /**
+   * Wraps the given {@link GitDataLoader} so that the time spent on every property it sets is
+   * recorded.
+   *
+   * @param loader The {@link GitDataLoader} to wrap
+   * @return A {@link GitDataLoader} that records the time spent on every property
+   */
+  @NonNull
+  GitDataLoader wrap(@NonNull GitDataLoader loader) {
+    return (cb, properties) -> {
+      RecordingProperties recording = new RecordingProperties(properties);
+      synchronized (this) {
+        lastPropertyEvent = System.nanoTime();
+        propertySpan = FlightRecorderEvents.beginProperty();
+      }
+      loader.loadGitData(cb, recording);
+      properties.putAll(recording);
+    };
+  }
+
+  private synchronized void recordProperty(@NonNull String key) {
+    long now = System.nanoTime();
+    properties.merge(key, now - lastPropertyEvent, Long::sum);
+    lastPropertyEvent = now;
+    propertySpan.end(key);
+    propertySpan = FlightRecorderEvents.beginProperty();
+  }
+
+  /** A copy of the properties that records every property that is set afterwards. */
+  private final class RecordingProperties extends Properties {
+    private static final long serialVersionUID = 1L;
+
+    private final boolean recording;
+
+    RecordingProperties(@NonNull Properties properties) {
+      putAll(properties);
+      recording = true;
+    }
+
+    @Override
+    public synchronized Object put(Object key, Object value) {
+      Object previous = super.put(key, value);
+      if (recording && key instanceof String && !value.equals(previous)) {
+        recordProperty((String) key);
+      }
+      return previous;
+    }
+
+    @Override
+    public synchronized Object putIfAbsent(Object key, Object value) {
+      Object previous = super.putIfAbsent(key, value);
+      if (recording && key instanceof String && previous == null) {
+        recordProperty((String) key);
+      }
+      return previous;
+    }
+  }
+
+  /**
+   * Returns the duration of all phases (and the total) in milliseconds as properties, where every
+   * key is the given prefix followed by the name of the phase.
+   *
+   * @param keyPrefix The prefix of every key (e.g. {@code git.build.timing.})
+   * @return The duration of all phases in milliseconds
+   */
+  @NonNull
+  synchronized Properties toProperties(@NonNull String keyPrefix) {
+    Properties result = new Properties();
+    phases.forEach((phase, duration) -> result.setProperty(keyPrefix + phase, millis(duration)));
+    result.setProperty(keyPrefix + "total", millis(System.nanoTime() - start));
+    return result;
+  }
+
+  /**
+   * Writes all recorded durations (in milliseconds) as JSON report into the given file.
+   *
+   * @param reportFile The file the report should be written to
+   * @param projectId The id of the project the durations belong to
+   * @throws IOException if the report could not be written
+   */
+  synchronized void writeReport(@NonNull File reportFile, @NonNull String projectId)
+      throws IOException {
+    long total = System.nanoTime() - start;
+    Files.createDirectories(reportFile.getAbsoluteFile().getParentFile().toPath());
+    try (Writer writer = Files.newBufferedWriter(reportFile.toPath(), StandardCharsets.UTF_8)) {
+      writer.write("{\n");
+      writer.write("  \"project\": " + quote(projectId) + ",\n");
+      writer.write("  \"totalMillis\": " + millis(total) + ",\n");
+      writer.write("  \"phases\": " + toJson(phases) + ",\n");
+      writer.write("  \"properties\": " + toJson(properties) + "\n");
+      writer.write("}\n");
+    }
+  }
+
+  @NonNull
+  private static String toJson(@NonNull Map<String, Long> durations) {
+    if (durations.isEmpty()) {
+      return "{}";
+    }
+    StringBuilder json = new StringBuilder("{\n");
+    int remaining = durations.size();
+    for (Map.Entry<String, Long> entry : durations.entrySet()) {
+      json.append("    ")
+          .append(quote(entry.getKey()))
+          .append(": ")
+          .append(millis(entry.getValue()))
+          .append(--remaining > 0 ? ",\n" : "\n");
+    }
+    return json.append("  }").toString();
+  }
+
+  @NonNull
+  private static String quote(@NonNull String value) {
+    StringBuilder quoted = new StringBuilder("\"");
+    for (char c : value.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        quoted.append('\\').append(c);
+      } else if (c < 0x20) {
+        quoted.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+      } else {
+        quoted.append(c);
+      }
+    }
+    return quoted.append('"').toString();
+  }
+
+  @NonNull
+  private static String millis(long nanos) {
+    return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.List;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Emits <a href="https://docs.oracle.com/en/java/javase/11/docs/api/jdk.jfr/module-summary.html">
+ * Java Flight Recorder</a> events, so that the work of the plugin shows up as named spans when a
+ * build is profiled (e.g. with {@code MAVEN_OPTS=-XX:StartFlightRecording}).
+ *
+ * <p>Every phase of an execution (see {@link ExecutionTimings}) is recorded as {@value
+ * PhaseEvent#NAME} event, every git property as {@value GitPropertyEvent#NAME} event. The git
+ * operations the plugin performs itself (e.g. the dirty check) as well as the run of the
+ * git-commit-id-plugin-core are recorded as {@value GitOperationEvent#NAME} event, every native git
+ * process the plugin starts as {@value GitCommandEvent#NAME} event. On a JVM without the {@code
+ * jdk.jfr} module nothing is recorded.
+ */
+final class FlightRecorderEvents {
+  private static final boolean AVAILABLE =
+      ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+  private static final Span NO_SPAN = name -> { };
+
+  private static final CommandSpan NO_COMMAND_SPAN = exitValue -> { };
+
+  private FlightRecorderEvents() {}
+
+  /** A span that is recorded as soon as it ends. */
+  @FunctionalInterface
+  interface Span {
+    /**
+     * Ends the span.
+     *
+     * @param name The name of the phase, the key of the property or the name of the operation the
+     *     span belongs to
+     */
+    void end(@NonNull String name);
+  }
+
+  /** The span of a native git process that is recorded as soon as the process exited. */
+  @FunctionalInterface
+  interface CommandSpan {
+    /**
+     * Ends the span.
+     *
+     * @param exitValue The exit value of the process, or {@code -1} if it did not exit in time
+     */
+    void end(int exitValue);
+  }
+
+  /**
+   * Begins the span of a phase.
+   *
+   * @return The span of the phase
+   */
+  @NonNull
+  static Span beginPhase() {
+    if (!AVAILABLE) {
+      return NO_SPAN;
+    }
+    PhaseEvent event = new PhaseEvent();
+    if (!event.isEnabled()) {
+      return NO_SPAN;
+    }
+    event.begin();
+    return name -> {
+      event.end();
+      if (event.shouldCommit()) {
+        event.phase = name;
+        event.commit();
+      }
+    };
+  }
+
+  /**
+   * Begins the span of a git property that ends once the property was set.
+   *
+   * @return The span of the git property
+   */
+  @NonNull
+  static Span beginProperty() {
+    if (!AVAILABLE) {
+      return NO_SPAN;
+    }
+    GitPropertyEvent event = new GitPropertyEvent();
+    if (!event.isEnabled()) {
+      return NO_SPAN;
+    }
+    event.begin();
+    return property -> {
+      event.end();
+      if (event.shouldCommit()) {
+        event.property = property;
+        event.commit();
+      }
+    };
+  }
+
+  /**
+   * Begins the span of a git operation.
+   *
+   * @return The span of the git operation
+   */
+  @NonNull
+  static Span beginGitOperation() {
+    if (!AVAILABLE) {
+      return NO_SPAN;
+    }
+    GitOperationEvent event = new GitOperationEvent();
+    if (!event.isEnabled()) {
+      return NO_SPAN;
+    }
+    event.begin();
+    return operation -> {
+      event.end();
+      if (event.shouldCommit()) {
+        event.operation = operation;
+        event.commit();
+      }
+    };
+  }
+
+  /**
+   * Begins the span of a native git process.
+   *
+   * @param command The command line of the process
+   * @return The span of the process
+   */
+  @NonNull
+  static CommandSpan beginGitCommand(@NonNull List<String> command) {
+    if (!AVAILABLE) {
+      return NO_COMMAND_SPAN;
+    }
+    GitCommandEvent event = new GitCommandEvent();
+    if (!event.isEnabled()) {
+      return NO_COMMAND_SPAN;
+    }
+    event.begin();
+    return exitValue -> {
+      event.end();
+      if (event.shouldCommit()) {
+        event.command = String.join(" ", command);
+        event.exitValue = exitValue;
+        event.commit();
+      }
+    };
+  }
+
+  /** A phase of an execution of the {@code revision} goal. */
+  @Name(PhaseEvent.NAME)
+  @Label("Phase")
+  @Category({"Maven", "git-commit-id"})
+  @Description("A phase of an execution of the revision goal")
+  @StackTrace(false)
+  static final class PhaseEvent extends Event {
+    static final String NAME = "pl.project13.maven.git.Phase";
+
+    @Label("Phase")
+    String phase;
+  }
+
+  /** The time that passed until a git property was set. */
+  @Name(GitPropertyEvent.NAME)
+  @Label("Git Property")
+  @Category({"Maven", "git-commit-id"})
+  @Description(
+      "The time between the previous and this git property being set, the first one also"
+          + " includes opening the repository")
+  @StackTrace(false)
+  static final class GitPropertyEvent extends Event {
+    static final String NAME = "pl.project13.maven.git.GitProperty";
+
+    @Label("Property")
+    String property;
+  }
+
+  /** A git operation of the plugin or the run of the git-commit-id-plugin-core. */
+  @Name(GitOperationEvent.NAME)
+  @Label("Git Operation")
+  @Category({"Maven", "git-commit-id"})
+  @Description("A git operation of the plugin or the run of the git-commit-id-plugin-core")
+  @StackTrace(false)
+  static final class GitOperationEvent extends Event {
+    static final String NAME = "pl.project13.maven.git.GitOperation";
+
+    @Label("Operation")
+    String operation;
+  }
+
+  /** A native git process started by the plugin. */
+  @Name(GitCommandEvent.NAME)
+  @Label("Git Command")
+  @Category({"Maven", "git-commit-id"})
+  @Description("A native git process started by the plugin")
+  @StackTrace(false)
+  static final class GitCommandEvent extends Event {
+    static final String NAME = "pl.project13.maven.git.GitCommand";
+
+    @Label("Command")
+    String command;
+
+    @Label("Exit Value")
+    int exitValue;
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.lifecycle.LifecycleExecutor;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.plugin.MavenPluginManager;
+import org.apache.maven.plugin.Mojo;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.logging.Logger;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Starts the computation of the git data on a background thread as soon as maven has read the
+ * projects, so that the git work overlaps with everything maven does before the first {@code
+ * revision} goal runs (e.g. the dependency resolution). The {@link GitCommitIdMojo} then simply
+ * joins the in-flight computation (see {@link GitDataSessionStore}).
+ *
+ * <p>The execution plan and the configuration of the mojo are resolved on maven's own thread, only
+ * the git work itself runs in the background.
+ *
+ * <p>The participant is only active when the plugin is registered as build extension:
+ *
+ * <pre>{@code
+ * <plugin>
+ *   <groupId>io.github.git-commit-id</groupId>
+ *   <artifactId>git-commit-id-maven-plugin</artifactId>
+ *   <extensions>true</extensions>
+ * </plugin>
+ * }</pre>
+ *
+ * <p>The git data is computed with the exact configuration of the first {@code revision}
+ * execution of the reactor. Should an execution end up with a different configuration, it simply
+ * computes the git data itself.
+ */
+@Named("git-commit-id")
+@Singleton
+public class GitCommitIdLifecycleParticipant extends AbstractMavenLifecycleParticipant {
+  private static final String PLUGIN_ARTIFACT_ID = "git-commit-id-maven-plugin";
+
+  private final Logger logger;
+
+  private final LifecycleExecutor lifecycleExecutor;
+
+  private final MavenPluginManager mavenPluginManager;
+
+  private ExecutorService executor;
+
+  /**
+   * Creates the participant.
+   *
+   * @param lifecycleExecutor The {@link LifecycleExecutor} to compute the execution plan
+   * @param mavenPluginManager The {@link MavenPluginManager} to configure the mojo
+   * @param logger The {@link Logger} to log any messages
+   */
+  @Inject
+  public GitCommitIdLifecycleParticipant(
+      LifecycleExecutor lifecycleExecutor, MavenPluginManager mavenPluginManager, Logger logger) {
+    this.logger = logger;
+    this.lifecycleExecutor = lifecycleExecutor;
+    this.mavenPluginManager = mavenPluginManager;
+  }
+
+  @Override
+  public synchronized void afterProjectsRead(MavenSession session) {
+    if (session.getGoals().isEmpty()) {
+      return;
+    }
+    BooleanSupplier preload = preparePreload(session);
+    if (preload == null) {
+      return;
+    }
+    executor =
+        Executors.newSingleThreadExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "git-commit-id-preload");
+              thread.setDaemon(true);
+              return thread;
+            });
+    executor.execute(
+        () -> {
+          try {
+            preload.getAsBoolean();
+          } catch (RuntimeException e) {
+            // the actual execution computes the git data itself
+            logger.debug("Unable to preload the git data", e);
+          }
+        });
+  }
+
+  @Override
+  public synchronized void afterSessionEnd(MavenSession session) {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+
+  @Nullable
+  private BooleanSupplier preparePreload(@NonNull MavenSession session) {
+    String[] goals = session.getGoals().toArray(new String[0]);
+    MavenProject currentProject = session.getCurrentProject();
+    try {
+      for (MavenProject project : session.getProjects()) {
+        if (!usesPlugin(project)) {
+          continue;
+        }
+        session.setCurrentProject(project);
+        List<MojoExecution> mojoExecutions =
+            lifecycleExecutor.calculateExecutionPlan(session, goals).getMojoExecutions();
+        for (MojoExecution mojoExecution : mojoExecutions) {
+          if (!isRevisionExecution(mojoExecution)) {
+            continue;
+          }
+          Mojo mojo = mavenPluginManager.getConfiguredMojo(Mojo.class, session, mojoExecution);
+          try {
+            // only the case if the mojo lives in the same class realm as this extension
+            if (!(mojo instanceof GitCommitIdMojo)) {
+              logger.debug("Unable to preload the git data, the plugin is loaded by another realm");
+              return null;
+            }
+            // the task only needs the resolved configuration, not the mojo as managed component
+            BooleanSupplier preload = ((GitCommitIdMojo) mojo).prepareGitDataPreload();
+            if (preload != null) {
+              // every further execution either shares the same repository or computes itself
+              logger.debug("Preloading the git data for " + mojoExecution);
+              return preload;
+            }
+          } finally {
+            mavenPluginManager.releaseMojo(mojo, mojoExecution);
+          }
+        }
+      }
+    } catch (Exception e) {
+      logger.debug("Unable to preload the git data", e);
+    } finally {
+      session.setCurrentProject(currentProject);
+    }
+    return null;
+  }
+
+  private static boolean usesPlugin(@NonNull MavenProject project) {
+    for (Plugin plugin : project.getBuildPlugins()) {
+      if (PLUGIN_ARTIFACT_ID.equals(plugin.getArtifactId())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isRevisionExecution(@NonNull MojoExecution mojoExecution) {
+    return PLUGIN_ARTIFACT_ID.equals(mojoExecution.getArtifactId())
+        && GitCommitIdMojo.class.getName().equals(
+            mojoExecution.getMojoDescriptor().getImplementation());
+  }
+}
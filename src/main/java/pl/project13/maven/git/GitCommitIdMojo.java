@@ -20,19 +20,24 @@ package pl.project13.maven.git;
 
 import com.google.common.annotations.VisibleForTesting;
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecution;
@@ -44,6 +49,7 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.settings.Settings;
+import org.eclipse.aether.SessionData;
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 import org.sonatype.plexus.build.incremental.BuildContext;
@@ -51,10 +57,12 @@ import pl.project13.core.CommitIdGenerationMode;
 import pl.project13.core.CommitIdPropertiesOutputFormat;
 import pl.project13.core.GitCommitIdExecutionException;
 import pl.project13.core.GitCommitIdPlugin;
+import pl.project13.core.GitCommitPropertyConstant;
 import pl.project13.core.PropertiesFileGenerator;
 import pl.project13.core.git.GitDescribeConfig;
 import pl.project13.core.log.LogInterface;
 import pl.project13.core.util.BuildFileChangeListener;
+import pl.project13.core.util.GitDirLocator;
 
 /**
  * Puts git build-time information into property files or maven's properties.
@@ -64,6 +72,8 @@ import pl.project13.core.util.BuildFileChangeListener;
 @Mojo(name = "revision", defaultPhase = LifecyclePhase.INITIALIZE, threadSafe = true)
 public class GitCommitIdMojo extends AbstractMojo {
   private static final String CONTEXT_KEY = GitCommitIdMojo.class.getName() + ".properties";
+  private static final String FIRST_PROJECT_KEY =
+      GitCommitIdMojo.class.getName() + ".firstProject";
 
   // ===============================================================================================
   // Parameter injected by maven itself can't be configured in the pom.xml!
@@ -115,7 +125,9 @@ public class GitCommitIdMojo extends AbstractMojo {
    * module (e.g. maven-antrun-plugin) you need to set it to {@code true}.
    *
    * <p>Inject git properties into all reactor projects, not just the current one may slow down the
-   * build and you don't always need this feature.
+   * build and you don't always need this feature. The properties are published into all reactor
+   * projects by the first execution, all later executions only publish the properties that differ
+   * from what was published before (e.g. {@code git.build.version}).
    *
    * <p>For details about why you might want to skip this, read this issue: <a
    * href="https://github.com/git-commit-id/git-commit-id-maven-plugin/pull/65">pull #65</a>
@@ -769,6 +781,9 @@ public class GitCommitIdMojo extends AbstractMojo {
    * href="https://github.com/git-commit-id/git-commit-id-maven-plugin/issues/408">issue 408</a> for
    * details).
    *
+   * <p>If none of the properties that are derived from the git repository can survive the
+   * filtering (e.g. only {@code git.build.time} is included), the repository is not even opened.
+   *
    * <p>Defaults to the empty list (= no properties are excluded).
    *
    * <p>Example:
@@ -808,6 +823,9 @@ public class GitCommitIdMojo extends AbstractMojo {
    * href="https://github.com/git-commit-id/git-commit-id-maven-plugin/issues/408">issue 408</a> for
    * details).
    *
+   * <p>If none of the properties that are derived from the git repository can survive the
+   * filtering (e.g. only {@code git.build.time} is included), the repository is not even opened.
+   *
    * <p>Defaults to the empty list (= no properties are excluded).
    *
    * <p>Example:
@@ -917,8 +935,11 @@ public class GitCommitIdMojo extends AbstractMojo {
    * rule should be applied and can be set to {@code BEFORE} to have the rule being applied before
    * or it can be set to {@code AFTER} to have the rule being applied after the replacement. The
    * {@code action}-tag determines the string conversion rule that should be applied. Currently
-   * supported is {@code LOWER_CASE} and {@code UPPER_CASE}. Potential candidates in the feature are
-   * {@code CAPITALIZATION} and {@code INVERT_CASE} (open a ticket if you need them...).
+   * supported is {@code LOWER_CASE}, {@code UPPER_CASE}, {@code TRIM}, {@code REMOVE_WHITESPACE},
+   * {@code REMOVE_SPECIAL_CHARACTERS} (keeps only ASCII letters, digits, {@code -}, {@code _} and
+   * {@code .}) and {@code TRUNCATE} (requires an additional {@code maxLength}). Multiple rules are
+   * applied in a single pass over the value, so e.g. a branch name can be sanitized with a chain of
+   * rules instead of a chain of (regex) replacements.
    *
    * <p>Since 4.0.1 the plugin allows to define a {@code forceValueEvaluation}-switch which forces
    * the plugin to evaluate the given value on <b>every</b> project.
@@ -965,6 +986,27 @@ public class GitCommitIdMojo extends AbstractMojo {
    */
   @Parameter List<ReplacementProperty> replacementProperties;
 
+  /**
+   * Allows to apply {@link #replacementProperties} that don't specify a {@code property} (and
+   * therefore apply to all generated properties) to all properties in parallel. The results are
+   * collected separately and published into the properties at once when the replacement is done.
+   *
+   * <p>This only pays off for many (regex) replacements over a large number of properties on a
+   * machine with many cores, for a handful of properties the overhead outweighs the gain.
+   *
+   * <p>By default this option is disabled (set to {@code false})
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <parallelReplacement>true</parallelReplacement>
+   * }</pre>
+   *
+   * @since 10.1.0
+   */
+  @Parameter(property = "maven.gitcommitid.parallelReplacement", defaultValue = "false")
+  boolean parallelReplacement;
+
   /**
    * Allow to tell the plugin what commit should be used as reference to generate the properties
    * from.
@@ -1100,6 +1142,284 @@ public class GitCommitIdMojo extends AbstractMojo {
   @Parameter(defaultValue = "${project.build.outputTimestamp}")
   private String projectBuildOutputTimestamp;
 
+  /**
+   * Allows to persist the git data (everything the plugin derives from the git repository) inside
+   * the file configured with {@link #cacheFile}, so that a repeated build with an unchanged
+   * repository can reuse it without opening the repository at all.
+   *
+   * <p>The cache is keyed on a cheap fingerprint of the repository (the content of {@code HEAD}
+   * and the ref it points to, the size and modification time of all other refs, the
+   * {@code packed-refs}, the index and the git config) and the configuration of the plugin.
+   *
+   * <p>Note: Modifications of the working tree are not reflected by that fingerprint. Properties
+   * that depend on the working tree ({@code git.dirty} and the describe properties, unless the
+   * {@code dirty} marker of {@link #gitDescribe} is set to an empty value) as well as the
+   * ahead/behind properties in online mode (see {@link #offline}) are therefore never served from
+   * the cache. {@code git.dirty} is then determined by the dirty check alone (see {@link
+   * #dirtyCheckMode}), only the other properties need the repository to be opened to compute them,
+   * unless they are excluded (see {@link #excludeProperties}) or skipped (e.g. with {@code
+   * <gitDescribe><skip>true</skip></gitDescribe>}). All other properties are reused.
+   *
+   * <p>By default this option is disabled (set to {@code false})
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <useCache>true</useCache>
+   * }</pre>
+   *
+   * @since 10.1.0
+   */
+  @Parameter(property = "maven.gitcommitid.cache", defaultValue = "false")
+  boolean useCache;
+
+  /**
+   * The location of the cache file that is used when {@link #useCache} is enabled.
+   *
+   * <p>By default the cache is stored inside the build directory of the project, so a {@code mvn
+   * clean} will also remove the cache.
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <cacheFile>${project.build.directory}/git-commit-id/git-data-cache.properties</cacheFile>
+   * }</pre>
+   *
+   * @since 10.1.0
+   */
+  @Parameter(defaultValue = "${project.build.directory}/git-commit-id/git-data-cache.properties")
+  File cacheFile;
+
+  /**
+   * Allows to keep the git data in memory for the lifetime of the JVM. This is meant for long
+   * living JVMs that run many builds, like the <a
+   * href="https://github.com/apache/maven-mvnd">Maven Daemon</a>. A warm rebuild inside the same
+   * daemon can then reuse the git data without opening the repository at all.
+   *
+   * <p>The git data is invalidated by watching {@code HEAD}, the {@code index}, the {@code
+   * packed-refs}, the git config and everything under {@code refs} for changes. Like for {@link
+   * #useCache} properties that depend on the working tree are never served from memory.
+   *
+   * <p>By default this option is disabled (set to {@code false})
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <useJvmCache>true</useJvmCache>
+   * }</pre>
+   *
+   * @since 10.1.0
+   */
+  @Parameter(property = "maven.gitcommitid.jvmcache", defaultValue = "false")
+  boolean useJvmCache;
+
+  /**
+   * Allows to write a report (in JSON) about the time the individual phases of the execution took
+   * into {@link #timingReportFile}. Besides the phases (e.g. loading the git data, the
+   * replacements or the generation of the properties file) the report also lists the time that was
+   * spent on every single git property (e.g. the dirty check, the describe or the ahead/behind
+   * computation). Each module writes its own report.
+   *
+   * <p>By default this option is disabled (set to {@code false})
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <generateTimingReport>true</generateTimingReport>
+   * }</pre>
+   *
+   * @since 10.1.0
+   */
+  @Parameter(property = "maven.gitcommitid.timing", defaultValue = "false")
+  boolean generateTimingReport;
+
+  /**
+   * The location of the report that is written when {@link #generateTimingReport} is enabled.
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <timingReportFile>${project.build.directory}/git-commit-id/timing.json</timingReportFile>
+   * }</pre>
+   *
+   * @since 10.1.0
+   */
+  @Parameter(defaultValue = "${project.build.directory}/git-commit-id/timing.json")
+  File timingReportFile;
+
+  /**
+   * Allows to expose the time the individual phases of the execution took (in milliseconds) as
+   * {@code git.build.timing.*} properties of the project (e.g. {@code git.build.timing.loadGitData}
+   * or {@code git.build.timing.total}). Those properties are not written into the generated
+   * properties file.
+   *
+   * <p>By default this option is disabled (set to {@code false})
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <injectTimingProperties>true</injectTimingProperties>
+   * }</pre>
+   *
+   * @since 10.1.0
+   */
+  @Parameter(defaultValue = "false")
+  boolean injectTimingProperties;
+
+  /**
+   * Allows to share the git data between all modules of the reactor that live inside the same git
+   * repository and use the same configuration. The first module computes the git data, every other
+   * module (including modules that are built in parallel with {@code -T}) waits for that
+   * computation and reuses its result. This turns the repository scans of a multi-module build
+   * into exactly one scan per repository.
+   *
+   * <p>Note: As a consequence all modules will report the same {@code git.dirty} state, even if
+   * an earlier module modified the working tree during the build.
+   *
+   * <p>By default this option is disabled (set to {@code false})
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <shareGitDataInReactor>true</shareGitDataInReactor>
+   * }</pre>
+   *
+   * @since 10.1.0
+   */
+  @Parameter(property = "maven.gitcommitid.sharegitdata", defaultValue = "false")
+  boolean shareGitDataInReactor;
+
+  /**
+   * Allows to compute {@code git.total.commit.count} from the <a
+   * href="https://git-scm.com/docs/gitformat-commit-graph">commit-graph</a> of the repository
+   * (written by e.g. {@code git gc} or {@code git commit-graph write}). The commit-graph holds the
+   * parents of every commit in a compact table, hence the commits can be counted without parsing
+   * a single commit object. For repositories with a long history this is orders of magnitude
+   * faster than walking the history.
+   *
+   * <p>If the repository has no commit-graph, or the commit-graph can't be used (e.g. for a
+   * shallow clone, or when the commit-graph is outdated), the history is walked as usual.
+   *
+   * <p>By default this option is disabled (set to {@code false})
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <useCommitGraph>true</useCommitGraph>
+   * }</pre>
+   *
+   * @since 10.1.0
+   */
+  @Parameter(property = "maven.gitcommitid.useCommitGraph", defaultValue = "false")
+  boolean useCommitGraph;
+
+  /**
+   * Allows to remember the values that are derived from the history of a commit ({@code
+   * git.total.commit.count}, {@code git.closest.tag.name}, {@code git.closest.tag.commit.count}
+   * and the describe) across builds in {@link #historyCacheFile}. The values are keyed on the id of
+   * the commit, hence they remain valid no matter how the rest of the repository changes.
+   *
+   * <p>When building a new commit the commit count is computed by only walking back to the closest
+   * commit that was built before, instead of walking the whole history. The closest tag and the
+   * describe are only reused for the very same commit (with the same tags and the same
+   * configuration of the describe).
+   *
+   * <p>By default this option is disabled (set to {@code false})
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <useHistoryCache>true</useHistoryCache>
+   * }</pre>
+   *
+   * @since 10.1.0
+   */
+  @Parameter(property = "maven.gitcommitid.historyCache", defaultValue = "false")
+  boolean useHistoryCache;
+
+  /**
+   * The location of the history that is remembered when {@link #useHistoryCache} is enabled. As
+   * the history of a commit never changes, the same file can be shared by all clones of a
+   * repository (e.g. all workspaces of a CI agent).
+   *
+   * <p>By default the history is stored inside the git directory of the repository (in {@code
+   * git-commit-id/history-cache.properties}).
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <historyCacheFile>${user.home}/.cache/git-commit-id/my-project.properties</historyCacheFile>
+   * }</pre>
+   *
+   * @since 10.1.0
+   */
+  @Parameter(property = "maven.gitcommitid.historyCacheFile")
+  File historyCacheFile;
+
+  /**
+   * Allows to choose how {@code git.dirty} is determined. Scanning the working tree for untracked
+   * files can take a considerable amount of time in repositories with a huge number of files that
+   * are not covered by a {@code .gitignore}. Valid modes are:
+   *
+   * <ul>
+   *   <li>{@code full}: the full status of the working tree the plugin always performed, including
+   *       the scan for untracked files (only with native git untracked files render the repository
+   *       dirty)
+   *   <li>{@code tracked-only}: only modifications of tracked files (staged or not) render the
+   *       repository dirty, untracked files are not scanned at all (native git runs {@code git diff
+   *       --cached --quiet} followed by {@code git diff --quiet})
+   *   <li>{@code index-only}: only staged modifications render the repository dirty, the working
+   *       tree is not scanned at all (native git runs {@code git diff --cached --quiet})
+   *   <li>{@code disabled}: {@code git.dirty} is not computed at all
+   * </ul>
+   *
+   * <p>Since only the answer whether there is any change at all is of interest, the {@code
+   * tracked-only} and {@code index-only} modes stop as soon as they found the first change.
+   *
+   * <p>Note: The dirty marker of the {@link #gitDescribe} is not affected by this option.
+   *
+   * <p>By default this option is set to {@code full}
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <dirtyCheckMode>tracked-only</dirtyCheckMode>
+   * }</pre>
+   *
+   * @since 10.1.0
+   */
+  @Parameter(property = "maven.gitcommitid.dirtyCheckMode", defaultValue = "full")
+  String dirtyCheckMode;
+
+  /**
+   * Not settable by any configuration in the {@code pom.xml}. For internal use only (represents the
+   * {@link #dirtyCheckMode} the user has set as enum.
+   */
+  private DirtyCheck.Mode dirtyCheckModeEnum = DirtyCheck.Mode.FULL;
+
+  /**
+   * Allows to compare the working tree to the index on multiple threads when the dirty check is
+   * performed with JGit. The entries of the index are partitioned along the top-level directories
+   * and the files are examined in parallel, as soon as the first modification is found all threads
+   * stop. The result is the same as the one of the single-threaded check (for the {@code full}
+   * {@link #dirtyCheckMode} as well as for {@code tracked-only}).
+   *
+   * <p>This only pays off for working trees with a huge number of files on a machine with many
+   * cores. The option is ignored when the native git binary is used.
+   *
+   * <p>By default this option is disabled (set to {@code false})
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <parallelDirtyCheck>true</parallelDirtyCheck>
+   * }</pre>
+   *
+   * @since 10.1.0
+   */
+  @Parameter(property = "maven.gitcommitid.parallelDirtyCheck", defaultValue = "false")
+  boolean parallelDirtyCheck;
+
   // This is now the end of parameters that can be configured in the pom.xml
   // Happy hacking!
   // ===============================================================================================
@@ -1123,103 +1443,59 @@ public class GitCommitIdMojo extends AbstractMojo {
 
   @Override
   public void execute() throws MojoExecutionException {
-    LogInterface log =
-        new LogInterface() {
-          @Override
-          public void debug(String msg) {
-            if (verbose) {
-              getLog().debug(msg);
-            }
-          }
-
-          @Override
-          public void info(String msg) {
-            if (verbose) {
-              getLog().info(msg);
-            }
-          }
-
-          @Override
-          public void warn(String msg) {
-            if (verbose) {
-              getLog().warn(msg);
-            }
-          }
-
-          @Override
-          public void error(String msg) {
-            // TODO: Should we truly only report errors when verbose = true?
-            if (verbose) {
-              getLog().error(msg);
-            }
-          }
-
-          @Override
-          public void error(String msg, Throwable t) {
-            // TODO: Should we truly only report errors when verbose = true?
-            if (verbose) {
-              getLog().error(msg, t);
-            }
-          }
-        };
+    ExecutionTimings timings = new ExecutionTimings();
+    LazyLogInterface log = createLogInterface();
 
     try {
       // Skip mojo execution on incremental builds.
+      IncrementalBuildStamp incrementalBuildStamp = null;
+      String repositoryFingerprint = null;
       if (buildContext != null && buildContext.isIncremental()) {
         // Except if properties file is missing at all
         if (!generateGitPropertiesFile
             || PropertiesFileGenerator.craftPropertiesOutputFile(
                     project.getBasedir(), new File(generateGitPropertiesFilename))
                 .exists()) {
-          log.info("Skip mojo execution on incremental builds.");
-          return;
+          // ...or the repository changed (e.g. by a checkout) since the last incremental build
+          File dotGitDir =
+              new GitDirLocator(
+                      project.getBasedir(),
+                      useNativeGit || useNativeGitViaCommandLine,
+                      failOnNoGitDirectory)
+                  .lookupGitDirectory(dotGitDirectory);
+          if (dotGitDir == null) {
+            log.info("Skip mojo execution on incremental builds.");
+            return;
+          }
+          incrementalBuildStamp =
+              new IncrementalBuildStamp(
+                  new File(
+                      project.getBuild().getDirectory(),
+                      "git-commit-id/incremental-build.fingerprint"),
+                  log);
+          repositoryFingerprint = incrementalBuildStamp.fingerprint(dotGitDir);
+          if (incrementalBuildStamp.isUpToDate(repositoryFingerprint)) {
+            log.info("Skip mojo execution on incremental builds, the repository is unchanged.");
+            return;
+          }
         }
       }
 
-      // read source encoding from project properties for those who still doesn't use UTF-8
-      String sourceEncoding = project.getProperties().getProperty("project.build.sourceEncoding");
-      if (null != sourceEncoding) {
-        sourceCharset = Charset.forName(sourceEncoding);
-      } else {
-        sourceCharset = Charset.defaultCharset();
-      }
-
       if (skip || skipViaCommandLine) {
         log.info("skip is enabled, skipping execution!");
         return;
       }
 
       if (runOnlyOnce) {
-        List<MavenProject> sortedProjects =
-            Optional.ofNullable(session.getProjectDependencyGraph())
-                .map(graph -> graph.getSortedProjects())
-                .orElseGet(
-                    () -> {
-                      log.warn(
-                          "Maven's dependency graph is null. Assuming project is the only one"
-                              + " executed.");
-                      return Collections.singletonList(session.getCurrentProject());
-                    });
-        MavenProject firstProject =
-            sortedProjects.stream()
-                // skipPoms == true => find first project that is not pom project
-                .filter(
-                    p -> {
-                      if (skipPoms) {
-                        return !isPomProject(p);
-                      } else {
-                        return true;
-                      }
-                    })
-                .findFirst()
-                .orElse(session.getCurrentProject());
+        MavenProject firstProject = getFirstProjectToExecute(log);
 
         log.info(
-            "Current project: '"
-                + session.getCurrentProject().getName()
-                + "', first project to execute based on dependency graph: '"
-                + firstProject.getName()
-                + "'");
+            () ->
+                "Current project: '"
+                    + session.getCurrentProject().getName()
+                    + "', first project to execute based on dependency graph: '"
+                    + firstProject.getName()
+                    + "'");
 
         if (!session.getCurrentProject().equals(firstProject)) {
           log.info(
@@ -1234,27 +1510,15 @@ public class GitCommitIdMojo extends AbstractMojo {
         return;
       }
 
-      if (gitDescribe == null) {
-        gitDescribe = new GitDescribeConfig();
-      }
-
-      try {
-        commitIdGenerationModeEnum =
-            CommitIdGenerationMode.valueOf(commitIdGenerationMode.toUpperCase());
-      } catch (IllegalArgumentException e) {
-        log.warn(
-            "Detected wrong setting for 'commitIdGenerationMode'. Falling back to default 'flat'"
-                + " mode!");
-        commitIdGenerationModeEnum = CommitIdGenerationMode.FLAT;
+      // read source encoding from project properties for those who still doesn't use UTF-8
+      String sourceEncoding = project.getProperties().getProperty("project.build.sourceEncoding");
+      if (null != sourceEncoding) {
+        sourceCharset = Charset.forName(sourceEncoding);
+      } else {
+        sourceCharset = Charset.defaultCharset();
       }
 
-      try {
-        commitIdPropertiesOutputFormat =
-            CommitIdPropertiesOutputFormat.valueOf(format.toUpperCase());
-      } catch (IllegalArgumentException e) {
-        log.warn("Detected wrong setting for 'format'. Falling back to default 'properties' mode!");
-        commitIdPropertiesOutputFormat = CommitIdPropertiesOutputFormat.PROPERTIES;
-      }
+      prepareConfiguration(log);
 
       Properties properties = null;
       // check if properties have already been injected
@@ -1268,198 +1532,446 @@ public class GitCommitIdMojo extends AbstractMojo {
         properties.putAll(contextProperties);
       }
 
-      final GitCommitIdPlugin.Callback cb =
-          new GitCommitIdPlugin.Callback() {
-            @Override
-            public Map<String, String> getSystemEnv() {
-              return getCustomSystemEnv();
-            }
+      GitCommitIdPlugin.Callback cb = createCallback(log, contextProperties);
 
-            @Override
-            public Supplier<String> supplyProjectVersion() {
-              return () -> project.getVersion();
-            }
+      GitCommitIdPluginRunner.GitDataLoader gitDataLoader =
+          GitCommitIdPluginRunner.DEFAULT_GIT_DATA_LOADER;
+      if (!alreadyInjected) {
+        gitDataLoader = createGitDataLoader(log);
+        if (shareGitDataInReactor) {
+          gitDataLoader =
+              GitDataSessionStore.forSession(session.getRepositorySession(), log)
+                  .wrap(gitDataLoader);
+        }
+      }
 
-            @NonNull
-            @Override
-            public LogInterface getLogInterface() {
-              return log;
-            }
+      GitCommitIdPluginRunner.runPlugin(cb, properties, gitDataLoader, timings);
+      if (incrementalBuildStamp != null) {
+        incrementalBuildStamp.update(repositoryFingerprint);
+      }
 
-            @NonNull
-            @Override
-            public String getDateFormat() {
-              return dateFormat;
-            }
+      if (injectTimingProperties) {
+        publishPropertiesInto(
+            timings.toProperties(cb.getPrefixDot() + "build.timing."), project.getProperties());
+      }
+      if (generateTimingReport) {
+        try {
+          timings.writeReport(timingReportFile, project.getId());
+        } catch (IOException e) {
+          log.warn("Unable to write the timing report " + timingReportFile + ": " + e);
+        }
+      }
+    } catch (GitCommitIdExecutionException e) {
+      throw new MojoExecutionException(e.getMessage(), e);
+    }
+  }
 
-            @NonNull
-            @Override
-            public String getDateFormatTimeZone() {
-              return dateFormatTimeZone;
-            }
+  /**
+   * Determines the first project of the reactor the plugin should be executed in when {@link
+   * #runOnlyOnce} is enabled. The decision is the same for every module, hence it is only made
+   * once per session (and value of {@link #skipPoms}) instead of scanning the sorted projects in
+   * every module.
+   *
+   * @param log The logger to log any messages
+   * @return The first project to execute
+   */
+  @NonNull
+  private MavenProject getFirstProjectToExecute(@NonNull LogInterface log) {
+    Supplier<MavenProject> firstProject =
+        () -> {
+          List<MavenProject> sortedProjects =
+              Optional.ofNullable(session.getProjectDependencyGraph())
+                  .map(graph -> graph.getSortedProjects())
+                  .orElseGet(
+                      () -> {
+                        log.warn(
+                            "Maven's dependency graph is null. Assuming project is the only one"
+                                + " executed.");
+                        return Collections.singletonList(session.getCurrentProject());
+                      });
+          return sortedProjects.stream()
+              // skipPoms == true => find first project that is not pom project
+              .filter(
+                  p -> {
+                    if (skipPoms) {
+                      return !isPomProject(p);
+                    } else {
+                      return true;
+                    }
+                  })
+              .findFirst()
+              .orElse(session.getCurrentProject());
+        };
+    SessionData sessionData =
+        session.getRepositorySession() == null ? null : session.getRepositorySession().getData();
+    if (sessionData == null || session.getProjectDependencyGraph() == null) {
+      return firstProject.get();
+    }
+    return (MavenProject)
+        sessionData.computeIfAbsent(FIRST_PROJECT_KEY + "." + skipPoms, firstProject::get);
+  }
 
-            @NonNull
-            @Override
-            public String getPrefixDot() {
-              String trimmedPrefix = prefix.trim();
-              return trimmedPrefix.equals("") ? "" : trimmedPrefix + ".";
-            }
+  /**
+   * Prepares the computation of the git data of this configured, but not yet executed, mojo ahead
+   * of time. This is used by the {@link GitCommitIdLifecycleParticipant} to move the git data off
+   * the critical path: the configuration is resolved on the calling thread, while the returned task
+   * only performs the git work and hands the git data over to the {@link GitDataSessionStore},
+   * where the actual execution picks it up.
+   *
+   * @return The task that computes the git data and tells whether it is now available to the
+   *     actual execution, or {@code null} if this execution has nothing to preload
+   */
+  @Nullable
+  BooleanSupplier prepareGitDataPreload() {
+    if (skip
+        || skipViaCommandLine
+        || !shareGitDataInReactor
+        || (isPomProject(project) && skipPoms)
+        || (buildContext != null && buildContext.isIncremental())) {
+      return null;
+    }
+    LazyLogInterface log = createLogInterface();
+    prepareConfiguration(log);
+    GitCommitIdPlugin.Callback cb = createCallback(log, null);
+    if (!GitCommitIdPluginRunner.isAnyGitDataIncluded(cb)) {
+      return null;
+    }
+    GitDataSessionStore store = GitDataSessionStore.forSession(session.getRepositorySession(), log);
+    GitCommitIdPluginRunner.GitDataLoader loader = createGitDataLoader(log);
+    return () -> store.preload(cb, loader);
+  }
 
-            @Override
-            public List<String> getExcludeProperties() {
-              return excludeProperties;
-            }
+  @NonNull
+  private LazyLogInterface createLogInterface() {
+    return new LazyLogInterface() {
+      @Override
+      public boolean isEnabled() {
+        return verbose;
+      }
 
-            @Override
-            public List<String> getIncludeOnlyProperties() {
-              return includeOnlyProperties;
-            }
+      @Override
+      public void debug(String msg) {
+        if (verbose) {
+          getLog().debug(msg);
+        }
+      }
 
-            @Nullable
-            @Override
-            public Date getReproducibleBuildOutputTimestamp() throws GitCommitIdExecutionException {
-              return parseOutputTimestamp(projectBuildOutputTimestamp);
-            }
+      @Override
+      public void info(String msg) {
+        if (verbose) {
+          getLog().info(msg);
+        }
+      }
 
-            @Override
-            public boolean useNativeGit() {
-              return useNativeGit || useNativeGitViaCommandLine;
-            }
+      @Override
+      public void warn(String msg) {
+        if (verbose) {
+          getLog().warn(msg);
+        }
+      }
 
-            @Override
-            public long getNativeGitTimeoutInMs() {
-              return nativeGitTimeoutInMs;
-            }
+      @Override
+      public void error(String msg) {
+        // TODO: Should we truly only report errors when verbose = true?
+        if (verbose) {
+          getLog().error(msg);
+        }
+      }
 
-            @Override
-            public int getAbbrevLength() {
-              return abbrevLength;
-            }
+      @Override
+      public void error(String msg, Throwable t) {
+        // TODO: Should we truly only report errors when verbose = true?
+        if (verbose) {
+          getLog().error(msg, t);
+        }
+      }
+    };
+  }
 
-            @Override
-            public GitDescribeConfig getGitDescribe() {
-              return gitDescribe;
-            }
+  /**
+   * Resolves the configured options (e.g. the enums behind their string representation).
+   *
+   * @param log The logger to log any messages
+   */
+  void prepareConfiguration(@NonNull LogInterface log) {
+    if (gitDescribe == null) {
+      gitDescribe = new GitDescribeConfig();
+    }
 
-            @Override
-            public CommitIdGenerationMode getCommitIdGenerationMode() {
-              return commitIdGenerationModeEnum;
-            }
+    try {
+      commitIdGenerationModeEnum =
+          CommitIdGenerationMode.valueOf(commitIdGenerationMode.toUpperCase());
+    } catch (IllegalArgumentException e) {
+      log.warn(
+          "Detected wrong setting for 'commitIdGenerationMode'. Falling back to default 'flat'"
+              + " mode!");
+      commitIdGenerationModeEnum = CommitIdGenerationMode.FLAT;
+    }
 
-            @Override
-            public boolean getUseBranchNameFromBuildEnvironment() {
-              return useBranchNameFromBuildEnvironment;
-            }
+    try {
+      commitIdPropertiesOutputFormat =
+          CommitIdPropertiesOutputFormat.valueOf(format.toUpperCase());
+    } catch (IllegalArgumentException e) {
+      log.warn("Detected wrong setting for 'format'. Falling back to default 'properties' mode!");
+      commitIdPropertiesOutputFormat = CommitIdPropertiesOutputFormat.PROPERTIES;
+    }
 
-            @Override
-            public boolean isOffline() {
-              return offline || settings.isOffline();
-            }
+    try {
+      dirtyCheckModeEnum =
+          dirtyCheckMode == null ? DirtyCheck.Mode.FULL : DirtyCheck.Mode.parse(dirtyCheckMode);
+    } catch (IllegalArgumentException e) {
+      log.warn(
+          "Detected wrong setting for 'dirtyCheckMode'. Falling back to default 'full' mode!");
+      dirtyCheckModeEnum = DirtyCheck.Mode.FULL;
+    }
+  }
 
-            @Override
-            public String getEvaluateOnCommit() {
-              return evaluateOnCommit;
-            }
+  @NonNull
+  private GitDataCallback createCallback(
+      @NonNull LazyLogInterface log, @Nullable Properties contextProperties) {
+    // the properties that were published into the other reactor projects so far
+    AtomicReference<Properties> publishedReactorProperties =
+        new AtomicReference<>(contextProperties);
+    return new GitDataCallback() {
+      @Override
+      public DirtyCheck.@NonNull Mode getDirtyCheckMode() {
+        return dirtyCheckModeEnum;
+      }
 
-            @Override
-            public File getDotGitDirectory() {
-              return dotGitDirectory;
-            }
+      @Override
+      public boolean isParallelDirtyCheck() {
+        return parallelDirtyCheck;
+      }
 
-            @Override
-            public boolean shouldGenerateGitPropertiesFile() {
-              return generateGitPropertiesFile;
-            }
+      @Override
+      public Map<String, String> getSystemEnv() {
+        return getCustomSystemEnv();
+      }
 
-            @Override
-            public void performPublishToAllSystemEnvironments(Properties properties) {
-              publishToAllSystemEnvironments(getLogInterface(), properties, contextProperties);
-            }
+      @Override
+      public Supplier<String> supplyProjectVersion() {
+        return () -> project.getVersion();
+      }
 
-            @Override
-            public void performPropertiesReplacement(Properties properties) {
-              PropertiesReplacer propertiesReplacer =
-                  new PropertiesReplacer(
-                      log, new PluginParameterExpressionEvaluator(session, mojoExecution));
-              propertiesReplacer.performReplacement(properties, replacementProperties);
+      @NonNull
+      @Override
+      public LogInterface getLogInterface() {
+        return log;
+      }
 
-              logProperties(getLogInterface(), properties);
-            }
+      @NonNull
+      @Override
+      public String getDateFormat() {
+        return dateFormat;
+      }
 
-            @Override
-            public CommitIdPropertiesOutputFormat getPropertiesOutputFormat() {
-              return commitIdPropertiesOutputFormat;
-            }
+      @NonNull
+      @Override
+      public String getDateFormatTimeZone() {
+        return dateFormatTimeZone;
+      }
 
-            @Override
-            public BuildFileChangeListener getBuildFileChangeListener() {
-              return file -> {
-                // this should only be null in our tests
-                if (buildContext != null) {
-                  buildContext.refresh(file);
-                }
-              };
-            }
+      @NonNull
+      @Override
+      public String getPrefixDot() {
+        String trimmedPrefix = prefix.trim();
+        return trimmedPrefix.equals("") ? "" : trimmedPrefix + ".";
+      }
 
-            @Override
-            public String getProjectName() {
-              return project.getName();
-            }
+      @Override
+      public List<String> getExcludeProperties() {
+        if (dirtyCheckModeEnum != DirtyCheck.Mode.DISABLED) {
+          return excludeProperties;
+        }
+        List<String> withoutDirty =
+            excludeProperties == null ? new ArrayList<>() : new ArrayList<>(excludeProperties);
+        withoutDirty.add(Pattern.quote(getPrefixDot() + GitCommitPropertyConstant.DIRTY));
+        return withoutDirty;
+      }
 
-            @Override
-            public File getProjectBaseDir() {
-              return project.getBasedir();
-            }
+      @Override
+      public List<String> getIncludeOnlyProperties() {
+        return includeOnlyProperties;
+      }
 
-            @Override
-            public File getGenerateGitPropertiesFile() {
-              return new File(generateGitPropertiesFilename);
-            }
+      @Nullable
+      @Override
+      public Date getReproducibleBuildOutputTimestamp() throws GitCommitIdExecutionException {
+        return parseOutputTimestamp(projectBuildOutputTimestamp);
+      }
 
-            @Override
-            public Charset getPropertiesSourceCharset() {
-              return sourceCharset;
-            }
+      @Override
+      public boolean useNativeGit() {
+        return useNativeGit || useNativeGitViaCommandLine;
+      }
 
-            @Override
-            public boolean shouldPropertiesEscapeUnicode() {
-              return generateGitPropertiesFileWithEscapedUnicode;
-            }
+      @Override
+      public long getNativeGitTimeoutInMs() {
+        return nativeGitTimeoutInMs;
+      }
 
-            @Override
-            public boolean shouldFailOnNoGitDirectory() {
-              return failOnNoGitDirectory;
-            }
+      @Override
+      public int getAbbrevLength() {
+        return abbrevLength;
+      }
 
-            @Override
-            public boolean isPerModuleVersions() {
-              return perModuleVersions;
-            }
-          };
+      @Override
+      public GitDescribeConfig getGitDescribe() {
+        return gitDescribe;
+      }
 
-      GitCommitIdPlugin.runPlugin(cb, properties);
-    } catch (GitCommitIdExecutionException e) {
-      throw new MojoExecutionException(e.getMessage(), e);
+      @Override
+      public CommitIdGenerationMode getCommitIdGenerationMode() {
+        return commitIdGenerationModeEnum;
+      }
+
+      @Override
+      public boolean getUseBranchNameFromBuildEnvironment() {
+        return useBranchNameFromBuildEnvironment;
+      }
+
+      @Override
+      public boolean isOffline() {
+        return offline || settings.isOffline();
+      }
+
+      @Override
+      public String getEvaluateOnCommit() {
+        return evaluateOnCommit;
+      }
+
+      @Override
+      public File getDotGitDirectory() {
+        return dotGitDirectory;
+      }
+
+      @Override
+      public boolean shouldGenerateGitPropertiesFile() {
+        return generateGitPropertiesFile;
+      }
+
+      @Override
+      public void performPublishToAllSystemEnvironments(Properties properties) {
+        publishToAllSystemEnvironments(log, properties, publishedReactorProperties);
+      }
+
+      @Override
+      public void performPropertiesReplacement(Properties properties) {
+        PropertiesReplacer propertiesReplacer =
+            new PropertiesReplacer(
+                log,
+                new PluginParameterExpressionEvaluator(session, mojoExecution),
+                parallelReplacement);
+        propertiesReplacer.performReplacement(properties, replacementProperties);
+
+        logProperties(log, properties);
+      }
+
+      @Override
+      public CommitIdPropertiesOutputFormat getPropertiesOutputFormat() {
+        return commitIdPropertiesOutputFormat;
+      }
+
+      @Override
+      public BuildFileChangeListener getBuildFileChangeListener() {
+        return file -> {
+          // this should only be null in our tests
+          if (buildContext != null) {
+            buildContext.refresh(file);
+          }
+        };
+      }
+
+      @Override
+      public String getProjectName() {
+        return project.getName();
+      }
+
+      @Override
+      public File getProjectBaseDir() {
+        return project.getBasedir();
+      }
+
+      @Override
+      public File getGenerateGitPropertiesFile() {
+        return new File(generateGitPropertiesFilename);
+      }
+
+      @Override
+      public Charset getPropertiesSourceCharset() {
+        return sourceCharset;
+      }
+
+      @Override
+      public boolean shouldPropertiesEscapeUnicode() {
+        return generateGitPropertiesFileWithEscapedUnicode;
+      }
+
+      @Override
+      public boolean shouldFailOnNoGitDirectory() {
+        return failOnNoGitDirectory;
+      }
+
+      @Override
+      public boolean isPerModuleVersions() {
+        return perModuleVersions;
+      }
+    };
+  }
+
+  /**
+   * Creates the {@link GitCommitIdPluginRunner.GitDataLoader} that the configured options ask for,
+   * i.e. the git-commit-id-plugin-core wrapped by the dirty check, the commit-graph and the caches.
+   * The configuration must have been prepared (see {@link #prepareConfiguration(LogInterface)}).
+   *
+   * @param log The logger to log any messages
+   * @return The {@link GitCommitIdPluginRunner.GitDataLoader} of this execution
+   */
+  GitCommitIdPluginRunner.@NonNull GitDataLoader createGitDataLoader(@NonNull LogInterface log) {
+    GitCommitIdPluginRunner.GitDataLoader gitDataLoader =
+        GitCommitIdPluginRunner.DEFAULT_GIT_DATA_LOADER;
+    gitDataLoader = DirtyCheck.wrap(gitDataLoader, dirtyCheckModeEnum, parallelDirtyCheck, log);
+    if (useCommitGraph) {
+      gitDataLoader = CommitGraph.wrap(gitDataLoader, log);
+    }
+    if (useHistoryCache) {
+      gitDataLoader = new HistoryCache(historyCacheFile, log).wrap(gitDataLoader);
     }
+    if (useCache) {
+      gitDataLoader = new GitDataCache(cacheFile, log).wrap(gitDataLoader);
+    }
+    if (useJvmCache) {
+      gitDataLoader = JvmGitDataCache.getInstance().wrap(gitDataLoader, log);
+    }
+    return gitDataLoader;
   }
 
   private void publishToAllSystemEnvironments(
-      @NonNull LogInterface log,
+      @NonNull LazyLogInterface log,
       @NonNull Properties propertiesToPublish,
-      @Nullable Properties contextProperties) {
+      @NonNull AtomicReference<Properties> publishedReactorProperties) {
     publishPropertiesInto(propertiesToPublish, project.getProperties());
     // some plugins rely on the user properties (e.g. flatten-maven-plugin)
     publishPropertiesInto(propertiesToPublish, session.getUserProperties());
 
     if (injectAllReactorProjects) {
+      Properties contextProperties = publishedReactorProperties.get();
       Properties diffPropertiesToPublish = new Properties();
-      propertiesToPublish.forEach((k, v) -> {
-        if (contextProperties == null || !contextProperties.contains(k)) {
-          diffPropertiesToPublish.setProperty(k.toString(), v.toString());
-        }
-      });
+      propertiesToPublish.forEach(
+          (k, v) -> {
+            if (contextProperties == null || !v.equals(contextProperties.get(k))) {
+              diffPropertiesToPublish.setProperty(k.toString(), v.toString());
+            }
+          });
       if (!diffPropertiesToPublish.isEmpty()) {
-        appendPropertiesToReactorProjects(log, diffPropertiesToPublish);
+        // copy-on-write: a published snapshot is shared by all projects and never modified
+        Properties snapshot = new Properties();
+        if (contextProperties != null) {
+          snapshot.putAll(contextProperties);
+        }
+        snapshot.putAll(diffPropertiesToPublish);
+        appendPropertiesToReactorProjects(log, diffPropertiesToPublish, snapshot);
+        publishedReactorProperties.set(snapshot);
       }
     }
 
@@ -1548,27 +2060,51 @@ public class GitCommitIdMojo extends AbstractMojo {
 
   private void publishPropertiesInto(Properties propertiesToPublish, Properties propertiesTarget) {
     for (String propertyName : propertiesToPublish.stringPropertyNames()) {
-      propertiesTarget.setProperty(propertyName, propertiesToPublish.getProperty(propertyName));
+      String value = propertiesToPublish.getProperty(propertyName);
+      // avoid taking the lock of the (synchronized) target when nothing changes
+      if (!value.equals(propertiesTarget.getProperty(propertyName))) {
+        propertiesTarget.setProperty(propertyName, value);
+      }
     }
   }
 
-  private void appendPropertiesToReactorProjects(LogInterface log, Properties propertiesToPublish) {
+  /**
+   * Publishes the given properties into all other reactor projects and hands them the snapshot of
+   * all properties published so far, so that their executions only need to publish what differs.
+   *
+   * @param log The logger to log any messages
+   * @param propertiesToPublish The properties that differ from the previously published snapshot
+   * @param snapshot All published properties, must not be modified afterwards
+   */
+  private void appendPropertiesToReactorProjects(
+      LazyLogInterface log, Properties propertiesToPublish, Properties snapshot) {
     for (MavenProject mavenProject : reactorProjects) {
       log.debug(
-          "Adding '" + propertiesToPublish.size() + "' properties "
-          + "to project: '" + mavenProject.getName() + "'");
+          () ->
+              "Adding '"
+                  + propertiesToPublish.size()
+                  + "' properties to project: '"
+                  + mavenProject.getName()
+                  + "'");
       if (mavenProject.equals(project)) {
         continue;
       }
       publishPropertiesInto(propertiesToPublish, mavenProject.getProperties());
-      mavenProject.setContextValue(CONTEXT_KEY, propertiesToPublish);
+      mavenProject.setContextValue(CONTEXT_KEY, snapshot);
     }
     log.info(
-        "Added '" + propertiesToPublish.size() + "' properties "
-        + "to '" + reactorProjects.size() + "' projects");
+        () ->
+            "Added '"
+                + propertiesToPublish.size()
+                + "' properties to '"
+                + reactorProjects.size()
+                + "' projects");
   }
 
-  private void logProperties(LogInterface log, Properties propertiesToPublish) {
+  private void logProperties(LazyLogInterface log, Properties propertiesToPublish) {
+    if (!log.isEnabled()) {
+      return;
+    }
     for (String propertyName : propertiesToPublish.stringPropertyNames()) {
       log.info("including property '" + propertyName + "' in results");
     }
@@ -0,0 +1,211 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import pl.project13.core.GitCommitIdExecutionException;
+import pl.project13.core.GitCommitIdPlugin;
+import pl.project13.core.GitCommitPropertyConstant;
+import pl.project13.core.PropertiesFileGenerator;
+import pl.project13.core.PropertiesFilterer;
+import pl.project13.core.util.GitDirLocator;
+
+/**
+ * Runs the same steps as {@link GitCommitIdPlugin#runPlugin(Callback, Properties)}, but lets the
+ * mojo decide where the git data comes from.
+ *
+ * <p>The git-commit-id-plugin-core never re-computes a property that is already present in the
+ * properties handed to it. The {@link GitDataLoader} abstraction builds on top of that, which
+ * allows to serve (parts of) the git data from a cache and only let the core compute what is
+ * missing.
+ *
+ * <p>In addition the git data is only loaded when at least one of the properties derived from the
+ * repository can survive the {@code includeOnlyProperties} and {@code excludeProperties}. Within
+ * the git data the core already skips every property (and the work behind it, e.g. the dirty
+ * check, the commit counting or the ahead/behind computation) that would be filtered anyway.
+ */
+final class GitCommitIdPluginRunner extends GitCommitIdPlugin {
+  /**
+   * Loads the git data (everything the {@link pl.project13.core.GitProvider} would generate) into
+   * the given properties.
+   */
+  @FunctionalInterface
+  interface GitDataLoader {
+    /**
+     * Loads the git data into the given properties. Properties that are already present must not
+     * be overridden.
+     *
+     * @param cb The callback that holds the configuration of the current execution
+     * @param properties The properties the git data should be loaded into
+     * @throws GitCommitIdExecutionException if the git data could not be loaded
+     */
+    void loadGitData(@NonNull Callback cb, @NonNull Properties properties)
+        throws GitCommitIdExecutionException;
+  }
+
+  /** The {@link GitDataLoader} that lets the git-commit-id-plugin-core compute everything. */
+  static final GitDataLoader DEFAULT_GIT_DATA_LOADER =
+      (cb, properties) -> {
+        FlightRecorderEvents.Span span = FlightRecorderEvents.beginGitOperation();
+        try {
+          GitCommitIdPlugin.loadGitData(cb, properties);
+        } finally {
+          span.end("git-commit-id-plugin-core");
+        }
+      };
+
+  /**
+   * The keys (without the prefix) of all properties that are derived from the git repository.
+   */
+  static final List<String> GIT_DATA_KEYS =
+      Collections.unmodifiableList(
+          Arrays.asList(
+              GitCommitPropertyConstant.BUILD_AUTHOR_NAME,
+              GitCommitPropertyConstant.BUILD_AUTHOR_EMAIL,
+              GitCommitPropertyConstant.BRANCH,
+              GitCommitPropertyConstant.COMMIT_DESCRIBE,
+              GitCommitPropertyConstant.COMMIT_SHORT_DESCRIBE,
+              GitCommitPropertyConstant.COMMIT_ID_FLAT,
+              GitCommitPropertyConstant.COMMIT_ID_FULL,
+              GitCommitPropertyConstant.COMMIT_ID_ABBREV,
+              GitCommitPropertyConstant.DIRTY,
+              GitCommitPropertyConstant.COMMIT_AUTHOR_NAME,
+              GitCommitPropertyConstant.COMMIT_AUTHOR_EMAIL,
+              GitCommitPropertyConstant.COMMIT_MESSAGE_FULL,
+              GitCommitPropertyConstant.COMMIT_MESSAGE_SHORT,
+              GitCommitPropertyConstant.COMMIT_TIME,
+              GitCommitPropertyConstant.COMMIT_AUTHOR_TIME,
+              GitCommitPropertyConstant.COMMIT_COMMITTER_TIME,
+              GitCommitPropertyConstant.REMOTE_ORIGIN_URL,
+              GitCommitPropertyConstant.TAGS,
+              GitCommitPropertyConstant.TAG,
+              GitCommitPropertyConstant.CLOSEST_TAG_NAME,
+              GitCommitPropertyConstant.CLOSEST_TAG_COMMIT_COUNT,
+              GitCommitPropertyConstant.TOTAL_COMMIT_COUNT,
+              GitCommitPropertyConstant.LOCAL_BRANCH_AHEAD,
+              GitCommitPropertyConstant.LOCAL_BRANCH_BEHIND));
+
+  private GitCommitIdPluginRunner() {}
+
+  /**
+   * Runs the plugin.
+   *
+   * @param cb The callback that holds the configuration of the current execution
+   * @param currentProperties Properties that have already been computed (may be {@code null})
+   * @param gitDataLoader The {@link GitDataLoader} that should be used to load the git data
+   * @throws GitCommitIdExecutionException if the plugin could not be executed
+   */
+  static void runPlugin(
+      @NonNull Callback cb,
+      @Nullable Properties currentProperties,
+      @NonNull GitDataLoader gitDataLoader)
+      throws GitCommitIdExecutionException {
+    runPlugin(cb, currentProperties, gitDataLoader, new ExecutionTimings());
+  }
+
+  /**
+   * Runs the plugin and records the duration of the individual phases.
+   *
+   * @param cb The callback that holds the configuration of the current execution
+   * @param currentProperties Properties that have already been computed (may be {@code null})
+   * @param gitDataLoader The {@link GitDataLoader} that should be used to load the git data
+   * @param timings The {@link ExecutionTimings} the durations are recorded in
+   * @throws GitCommitIdExecutionException if the plugin could not be executed
+   */
+  static void runPlugin(
+      @NonNull Callback cb,
+      @Nullable Properties currentProperties,
+      @NonNull GitDataLoader gitDataLoader,
+      @NonNull ExecutionTimings timings)
+      throws GitCommitIdExecutionException {
+    PropertiesFilterer propertiesFilterer = new PropertiesFilterer(cb.getLogInterface());
+
+    // The properties we store our data in and then expose them.
+    Properties properties = currentProperties == null ? new Properties() : currentProperties;
+
+    timings.time(
+        ExecutionTimings.LOAD_GIT_DATA,
+        () -> {
+          if (isAnyGitDataIncluded(cb)) {
+            timings.wrap(gitDataLoader).loadGitData(cb, properties);
+          } else {
+            cb.getLogInterface()
+                .info(
+                    "None of the git properties can survive"
+                        + " includeOnlyProperties/excludeProperties, skipping the repository!");
+            // still honour failOnNoGitDirectory
+            new GitDirLocator(
+                    cb.getProjectBaseDir(), cb.useNativeGit(), cb.shouldFailOnNoGitDirectory())
+                .lookupGitDirectory(cb.getDotGitDirectory());
+          }
+        });
+    timings.time("loadBuildData", () -> loadBuildData(cb, properties));
+    timings.time(
+        "filterProperties",
+        () -> {
+          propertiesFilterer.filter(properties, cb.getIncludeOnlyProperties(), cb.getPrefixDot());
+          propertiesFilterer.filterNot(properties, cb.getExcludeProperties(), cb.getPrefixDot());
+        });
+
+    timings.time("publishProperties", () -> cb.performPublishToAllSystemEnvironments(properties));
+
+    timings.time("replaceProperties", () -> cb.performPropertiesReplacement(properties));
+    if (cb.shouldGenerateGitPropertiesFile()) {
+      timings.time(
+          "generatePropertiesFile",
+          () ->
+              new PropertiesFileGenerator(
+                      cb.getLogInterface(),
+                      cb.getBuildFileChangeListener(),
+                      cb.getPropertiesOutputFormat(),
+                      cb.getPrefixDot(),
+                      cb.getProjectName())
+                  .maybeGeneratePropertiesFile(
+                      properties,
+                      cb.getProjectBaseDir(),
+                      cb.getGenerateGitPropertiesFile(),
+                      cb.getPropertiesSourceCharset(),
+                      cb.shouldPropertiesEscapeUnicode()));
+    }
+
+    // publish properties again since we might have new properties gained by the replacement
+    timings.time("publishProperties", () -> cb.performPublishToAllSystemEnvironments(properties));
+  }
+
+  /**
+   * Checks if at least one of the properties derived from the git repository can survive the
+   * {@code includeOnlyProperties} and {@code excludeProperties} of the current execution.
+   *
+   * @param cb The callback that holds the configuration of the current execution
+   * @return {@code true} if the git data needs to be loaded
+   */
+  static boolean isAnyGitDataIncluded(@NonNull Callback cb) {
+    String prefixDot = cb.getPrefixDot();
+    return GIT_DATA_KEYS.stream()
+        .anyMatch(
+            key ->
+                PropertiesFilterer.isIncluded(
+                    prefixDot + key, cb.getIncludeOnlyProperties(), cb.getExcludeProperties()));
+  }
+}
@@ -0,0 +1,322 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import pl.project13.core.GitCommitIdExecutionException;
+import pl.project13.core.GitCommitIdPlugin;
+import pl.project13.core.GitCommitPropertyConstant;
+import pl.project13.core.PropertiesFilterer;
+import pl.project13.core.cibuild.BuildServerDataProvider;
+import pl.project13.core.git.GitDescribeConfig;
+import pl.project13.core.log.LogInterface;
+import pl.project13.core.util.GitDirLocator;
+import pl.project13.maven.git.GitCommitIdPluginRunner.GitDataLoader;
+
+/**
+ * Persists the git data of a previous execution on disk (e.g. under {@code target/}), so that a
+ * repeated build with an unchanged repository does not need to open the repository at all.
+ *
+ * <p>The cached data is keyed on the {@link RepositoryFingerprint} ({@code HEAD}, the ref it
+ * points to, the remaining refs, the index and the git config) and the configuration of the
+ * plugin. Modifications of the working tree are not covered by that fingerprint, hence properties
+ * that depend on the working tree (see {@link #getVolatileKeys}) are never served from the cache.
+ * On a cache hit {@code git.dirty} is determined by the {@link DirtyCheck} alone, the core only
+ * runs (and opens the repository) if one of the other volatile properties is included.
+ */
+final class GitDataCache {
+  /** The key under which the cache key is stored inside the cache file. */
+  static final String CACHE_KEY_PROPERTY = "git-commit-id.cache.key";
+
+  private final File cacheFile;
+  private final LogInterface log;
+
+  /**
+   * Creates a cache that is backed by the given file.
+   *
+   * @param cacheFile The file the git data is persisted in
+   * @param log The logger to log any messages
+   */
+  GitDataCache(@NonNull File cacheFile, @NonNull LogInterface log) {
+    this.cacheFile = cacheFile;
+    this.log = log;
+  }
+
+  /**
+   * Wraps the given {@link GitDataLoader} so that it only gets invoked when the cache can't serve
+   * the git data.
+   *
+   * @param delegate The {@link GitDataLoader} that computes the git data
+   * @return A {@link GitDataLoader} that serves the git data from the cache whenever possible
+   */
+  GitDataLoader wrap(@NonNull GitDataLoader delegate) {
+    return (cb, properties) -> {
+      File dotGitDirectory =
+          new GitDirLocator(
+                  cb.getProjectBaseDir(), cb.useNativeGit(), cb.shouldFailOnNoGitDirectory())
+              .lookupGitDirectory(cb.getDotGitDirectory());
+      if (dotGitDirectory == null) {
+        delegate.loadGitData(cb, properties);
+        return;
+      }
+
+      String cacheKey = computeCacheKey(cb, dotGitDirectory);
+      Properties cached = read(cacheKey);
+      if (cached != null) {
+        log.info("Using cached git data from " + cacheFile.getAbsolutePath());
+        cached.forEach(properties::putIfAbsent);
+        loadVolatileGitData(delegate, cb, dotGitDirectory, properties, log);
+        return;
+      }
+
+      delegate.loadGitData(cb, properties);
+
+      Properties toCache = new Properties();
+      toCache.putAll(properties);
+      Set<String> volatileKeys = getVolatileKeys(cb);
+      volatileKeys.forEach(toCache::remove);
+      write(cacheKey, toCache);
+    };
+  }
+
+  /**
+   * The keys of all properties that depend on the state of the working tree (or the remote) and
+   * therefore can't be reused when only the fingerprint of the repository is known.
+   *
+   * @param cb The callback that holds the configuration of the current execution
+   * @return The keys (including the prefix) that should never be served from the cache
+   */
+  static Set<String> getVolatileKeys(GitCommitIdPlugin.@NonNull Callback cb) {
+    String prefixDot = cb.getPrefixDot();
+    Set<String> volatileKeys = new LinkedHashSet<>();
+    volatileKeys.add(prefixDot + GitCommitPropertyConstant.DIRTY);
+
+    GitDescribeConfig gitDescribe = cb.getGitDescribe();
+    if (gitDescribe != null
+        && !gitDescribe.isSkip()
+        && gitDescribe.getDirty() != null
+        && !gitDescribe.getDirty().isEmpty()) {
+      volatileKeys.add(prefixDot + GitCommitPropertyConstant.COMMIT_DESCRIBE);
+      volatileKeys.add(prefixDot + GitCommitPropertyConstant.COMMIT_SHORT_DESCRIBE);
+    }
+    if (!cb.isOffline()) {
+      // a fetch might reveal new commits on the remote
+      volatileKeys.add(prefixDot + GitCommitPropertyConstant.LOCAL_BRANCH_AHEAD);
+      volatileKeys.add(prefixDot + GitCommitPropertyConstant.LOCAL_BRANCH_BEHIND);
+    }
+    return volatileKeys;
+  }
+
+  /**
+   * Computes the included volatile properties (see {@link #getVolatileKeys}) on top of git data
+   * that was served from a cache. {@code git.dirty} is determined by the {@link DirtyCheck} right
+   * away, only the describe with a dirty marker and the ahead/behind counts of an online build need
+   * the given {@link GitDataLoader} (and thus the core, which opens the repository).
+   *
+   * @param delegate The {@link GitDataLoader} that computes the git data
+   * @param cb The callback that holds the configuration of the current execution
+   * @param dotGitDirectory The git directory of the repository
+   * @param properties The properties that already hold the cached git data
+   * @param log The logger to log any messages
+   * @throws GitCommitIdExecutionException if the volatile properties could not be computed
+   */
+  static void loadVolatileGitData(
+      @NonNull GitDataLoader delegate,
+      GitCommitIdPlugin.@NonNull Callback cb,
+      @NonNull File dotGitDirectory,
+      @NonNull Properties properties,
+      @NonNull LogInterface log)
+      throws GitCommitIdExecutionException {
+    List<String> includedKeys = new ArrayList<>();
+    for (String key : getVolatileKeys(cb)) {
+      if (!properties.containsKey(key)
+          && PropertiesFilterer.isIncluded(
+              key, cb.getIncludeOnlyProperties(), cb.getExcludeProperties())) {
+        includedKeys.add(key);
+      }
+    }
+    String dirtyKey = cb.getPrefixDot() + GitCommitPropertyConstant.DIRTY;
+    if (includedKeys.remove(dirtyKey)) {
+      DirtyCheck.Mode mode = DirtyCheck.Mode.FULL;
+      boolean parallel = false;
+      if (cb instanceof GitDataCallback) {
+        mode = ((GitDataCallback) cb).getDirtyCheckMode();
+        parallel = ((GitDataCallback) cb).isParallelDirtyCheck();
+      }
+      boolean dirty = DirtyCheck.isDirty(cb, dotGitDirectory, mode, parallel);
+      properties.setProperty(dirtyKey, String.valueOf(dirty));
+    }
+    if (!includedKeys.isEmpty()) {
+      log.info("Computing properties that depend on the working tree: " + includedKeys);
+      delegate.loadGitData(cb, properties);
+    }
+  }
+
+  @Nullable
+  private Properties read(@NonNull String cacheKey) {
+    if (!cacheFile.isFile()) {
+      return null;
+    }
+    Properties cached = new Properties();
+    try (Reader reader = Files.newBufferedReader(cacheFile.toPath(), StandardCharsets.UTF_8)) {
+      cached.load(reader);
+    } catch (IOException | IllegalArgumentException e) {
+      log.warn("Unable to read the git data cache " + cacheFile.getAbsolutePath() + ": " + e);
+      return null;
+    }
+    if (!cacheKey.equals(cached.remove(CACHE_KEY_PROPERTY))) {
+      log.info("The git data cache is outdated, recomputing the git data");
+      return null;
+    }
+    return cached;
+  }
+
+  private void write(@NonNull String cacheKey, @NonNull Properties gitData) {
+    Properties toStore = new Properties();
+    toStore.putAll(gitData);
+    toStore.setProperty(CACHE_KEY_PROPERTY, cacheKey);
+
+    Path target = cacheFile.toPath().toAbsolutePath();
+    try {
+      Files.createDirectories(target.getParent());
+      Path tmp = Files.createTempFile(target.getParent(), cacheFile.getName(), ".tmp");
+      try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+        toStore.store(writer, "git-commit-id-maven-plugin git data cache");
+      }
+      try {
+        Files.move(
+            tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      log.warn("Unable to write the git data cache " + target + ": " + e);
+    }
+  }
+
+  /**
+   * Computes the key of the cache, which is a digest over the fingerprint of the repository and
+   * all configuration options that have an influence on the generated git data.
+   */
+  @NonNull
+  static String computeCacheKey(GitCommitIdPlugin.@NonNull Callback cb, @NonNull File dotGitDir)
+      throws GitCommitIdExecutionException {
+    List<String> components = new ArrayList<>();
+    components.add(getPluginVersion());
+    components.add(String.valueOf(cb.getProjectBaseDir()));
+    components.add(String.valueOf(cb.getDotGitDirectory()));
+    components.add(computeConfigurationKey(cb));
+    try {
+      components.add(RepositoryFingerprint.of(dotGitDir.toPath()).toString());
+    } catch (IOException e) {
+      throw new GitCommitIdExecutionException("Unable to fingerprint " + dotGitDir, e);
+    }
+    return sha256(String.join("\n", components));
+  }
+
+  /**
+   * Computes a key over all configuration options that have an influence on the git data of a
+   * given repository. Two executions with the same key (and the same repository) produce the same
+   * git data.
+   *
+   * @param cb The callback that holds the configuration of the current execution
+   * @return The key of the configuration
+   */
+  @NonNull
+  static String computeConfigurationKey(GitCommitIdPlugin.@NonNull Callback cb) {
+    List<String> components = new ArrayList<>();
+    components.add(cb.getPrefixDot());
+    components.add(cb.getDateFormat());
+    components.add(cb.getDateFormatTimeZone());
+    components.add(String.valueOf(cb.getIncludeOnlyProperties()));
+    components.add(String.valueOf(cb.getExcludeProperties()));
+    components.add(String.valueOf(cb.useNativeGit()));
+    components.add(String.valueOf(cb.getAbbrevLength()));
+    components.add(String.valueOf(cb.getGitDescribe()));
+    components.add(String.valueOf(cb.getCommitIdGenerationMode()));
+    components.add(String.valueOf(cb.isOffline()));
+    components.add(cb.getEvaluateOnCommit());
+    components.add(String.valueOf(cb.isPerModuleVersions()));
+    if (cb.isPerModuleVersions()) {
+      // the git data is limited to the commits touching the module
+      components.add(String.valueOf(cb.getProjectBaseDir()));
+    }
+    components.add(String.valueOf(cb.getUseBranchNameFromBuildEnvironment()));
+    if (cb.getUseBranchNameFromBuildEnvironment()) {
+      components.add(
+          BuildServerDataProvider.getBuildServerProvider(cb.getSystemEnv(), cb.getLogInterface())
+              .getBuildBranch());
+    }
+    if (cb instanceof GitDataCallback) {
+      // the dirty check of the plugin may determine git.dirty differently than the core
+      GitDataCallback gitDataCallback = (GitDataCallback) cb;
+      components.add(String.valueOf(gitDataCallback.getDirtyCheckMode()));
+      components.add(String.valueOf(gitDataCallback.isParallelDirtyCheck()));
+    }
+    return String.join("\n", components);
+  }
+
+  @NonNull
+  static String sha256(@NonNull String input) {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(input.getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      // every java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @NonNull
+  private static String getPluginVersion() {
+    try (InputStream in = GitDataCache.class.getResourceAsStream("/git-commit-id.properties")) {
+      if (in == null) {
+        return "unknown";
+      }
+      Properties properties = new Properties();
+      properties.load(in);
+      return properties.getProperty("git-commit-id-plugin.version", "unknown");
+    } catch (IOException e) {
+      return "unknown";
+    }
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import pl.project13.core.GitCommitIdExecutionException;
+import pl.project13.core.GitCommitIdPlugin;
+import pl.project13.core.log.LogInterface;
+import pl.project13.core.util.GitDirLocator;
+import pl.project13.maven.git.GitCommitIdPluginRunner.GitDataLoader;
+
+/**
+ * Shares the git data between all modules of a reactor build that live inside the same git
+ * repository.
+ *
+ * <p>The git data is keyed on the canonical {@code .git} directory (as resolved by the {@link
+ * GitDirLocator}) and the configuration of the plugin. The first module that requests the git
+ * data computes it, every other module (including modules that are built concurrently with
+ * {@code -T}) waits for that computation and reuses its result. The git data can also be {@link
+ * #preload preloaded} before any module requests it.
+ */
+final class GitDataSessionStore {
+  private static final String SESSION_DATA_KEY = GitDataSessionStore.class.getName();
+
+  private final ConcurrentMap<String, CompletableFuture<Properties>> gitDataByKey;
+  private final LogInterface log;
+
+  /**
+   * Creates a store that is backed by the given map.
+   *
+   * @param gitDataByKey The map that holds the (in-flight) git data
+   * @param log The logger to log any messages
+   */
+  GitDataSessionStore(
+      @NonNull ConcurrentMap<String, CompletableFuture<Properties>> gitDataByKey,
+      @NonNull LogInterface log) {
+    this.gitDataByKey = gitDataByKey;
+    this.log = log;
+  }
+
+  /**
+   * Returns the store that is attached to the given session. Without a session (e.g. in our
+   * tests) a store is returned that is not shared with anyone.
+   *
+   * @param repositorySession The session the store should be attached to
+   * @param log The logger to log any messages
+   * @return The store that is attached to the given session
+   */
+  @SuppressWarnings("unchecked")
+  static GitDataSessionStore forSession(
+      @Nullable RepositorySystemSession repositorySession, @NonNull LogInterface log) {
+    SessionData sessionData = repositorySession == null ? null : repositorySession.getData();
+    if (sessionData == null) {
+      return new GitDataSessionStore(new ConcurrentHashMap<>(), log);
+    }
+    return new GitDataSessionStore(
+        (ConcurrentMap<String, CompletableFuture<Properties>>)
+            sessionData.computeIfAbsent(SESSION_DATA_KEY, ConcurrentHashMap::new),
+        log);
+  }
+
+  /**
+   * Wraps the given {@link GitDataLoader} so that it only gets invoked once per repository and
+   * configuration.
+   *
+   * @param delegate The {@link GitDataLoader} that computes the git data
+   * @return A {@link GitDataLoader} that shares the git data with all other modules
+   */
+  GitDataLoader wrap(@NonNull GitDataLoader delegate) {
+    return (cb, properties) -> {
+      String key = computeKey(cb);
+      if (key == null) {
+        delegate.loadGitData(cb, properties);
+        return;
+      }
+
+      Properties gitData = null;
+      while (gitData == null) {
+        CompletableFuture<Properties> computation = new CompletableFuture<>();
+        CompletableFuture<Properties> inFlight = gitDataByKey.putIfAbsent(key, computation);
+        if (inFlight == null) {
+          gitData = new Properties();
+          try {
+            delegate.loadGitData(cb, gitData);
+          } catch (Throwable t) {
+            // every module that waits for this computation (or arrives later) tries again
+            gitDataByKey.remove(key, computation);
+            computation.completeExceptionally(t);
+            throw t;
+          }
+          computation.complete(gitData);
+        } else {
+          log.info("Reusing the git data computed by another module");
+          // null means that the other computation failed (or a preload gave up), in that case we
+          // compute the git data ourselves
+          gitData = await(inFlight);
+        }
+      }
+      gitData.forEach(properties::putIfAbsent);
+    };
+  }
+
+  /**
+   * Computes the git data ahead of time (e.g. on a background thread while maven is still busy
+   * with other things), so that a later {@link #wrap wrapped} {@link GitDataLoader} with the same
+   * repository and configuration can simply pick it up. A failure is never propagated to the
+   * modules waiting for the git data, they compute the git data themselves instead.
+   *
+   * @param cb The callback that holds the configuration of the execution to preload
+   * @param delegate The {@link GitDataLoader} that computes the git data
+   * @return {@code true} if the git data is now available (or being computed by someone else)
+   */
+  boolean preload(GitCommitIdPlugin.@NonNull Callback cb, @NonNull GitDataLoader delegate) {
+    CompletableFuture<Properties> computation = new CompletableFuture<>();
+    String key = null;
+    try {
+      key = computeKey(cb);
+      if (key == null || gitDataByKey.putIfAbsent(key, computation) != null) {
+        return key != null;
+      }
+      Properties gitData = new Properties();
+      delegate.loadGitData(cb, gitData);
+      computation.complete(gitData);
+      return true;
+    } catch (GitCommitIdExecutionException | RuntimeException e) {
+      log.info("Unable to preload the git data: " + e.getMessage());
+      return false;
+    } finally {
+      if (!computation.isDone()) {
+        if (key != null) {
+          gitDataByKey.remove(key, computation);
+        }
+        computation.complete(null);
+      }
+    }
+  }
+
+  @Nullable
+  private static String computeKey(GitCommitIdPlugin.@NonNull Callback cb)
+      throws GitCommitIdExecutionException {
+    File dotGitDirectory =
+        new GitDirLocator(
+                cb.getProjectBaseDir(), cb.useNativeGit(), cb.shouldFailOnNoGitDirectory())
+            .lookupGitDirectory(cb.getDotGitDirectory());
+    if (dotGitDirectory == null) {
+      return null;
+    }
+    return canonicalPath(dotGitDirectory) + "\n" + GitDataCache.computeConfigurationKey(cb);
+  }
+
+  @Nullable
+  private Properties await(@NonNull CompletableFuture<Properties> inFlight)
+      throws GitCommitIdExecutionException {
+    try {
+      return inFlight.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new GitCommitIdExecutionException("Interrupted while waiting for the git data", e);
+    } catch (ExecutionException e) {
+      // the module that computed the git data reports the failure
+      log.info("The git data of another module could not be computed: " + e.getCause());
+      return null;
+    }
+  }
+
+  @NonNull
+  private static String canonicalPath(@NonNull File file) {
+    try {
+      return file.getCanonicalPath();
+    } catch (IOException e) {
+      return file.getAbsolutePath();
+    }
+  }
+}
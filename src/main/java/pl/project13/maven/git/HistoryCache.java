@@ -0,0 +1,399 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import pl.project13.core.GitCommitIdPlugin;
+import pl.project13.core.GitCommitPropertyConstant;
+import pl.project13.core.PropertiesFilterer;
+import pl.project13.core.log.LogInterface;
+import pl.project13.core.util.GitDirLocator;
+import pl.project13.maven.git.GitCommitIdPluginRunner.GitDataLoader;
+
+/**
+ * Remembers the values that are derived from the history of a commit across builds, keyed on the
+ * id of the commit. Unlike the {@link GitDataCache} (which is invalidated by every change of the
+ * repository) the history of a commit never changes, so the values of a commit stay valid no
+ * matter which other refs were moved in between.
+ *
+ * <ul>
+ *   <li>{@code git.total.commit.count} is remembered for every commit. If the current commit is
+ *       unknown, the history is only walked back to the closest remembered ancestor: the commit
+ *       count is the count of that ancestor plus the number of commits that are reachable from
+ *       the current commit but not from the ancestor.
+ *   <li>{@code git.closest.tag.name}, {@code git.closest.tag.commit.count} and the describe
+ *       properties additionally depend on the tags of the repository and the configuration of the
+ *       describe, hence they are only reused for the very same commit, tags and configuration.
+ * </ul>
+ *
+ * <p>The history of a shallow clone, or of a repository with grafts or replace refs, can change
+ * without changing the commit, so such repositories are never cached.
+ *
+ * <p>Concurrent builds (and the modules of a parallel build) merge their values into the cache
+ * while holding a lock on a sibling {@code .lock} file. Once the cache grows beyond {@value
+ * #MAX_ENTRIES} entries, the commits that were written the longest time ago are evicted.
+ */
+final class HistoryCache {
+  /** The number of remembered entries that are kept before the oldest commits are evicted. */
+  static final int MAX_ENTRIES = 4096;
+
+  /** How many commits are inspected at most to find a remembered ancestor. */
+  private static final int MAX_ANCESTOR_DISTANCE = 1000;
+
+  private static final String TOTAL_COMMIT_COUNT_SUFFIX = ".total";
+
+  /** The suffix of the entry that remembers when the values of a commit were last written. */
+  private static final String WRITTEN_SUFFIX = ".written";
+
+  /** The properties that depend on the tags and the describe configuration. */
+  private static final List<String> TAG_KEYS =
+      Arrays.asList(
+          GitCommitPropertyConstant.CLOSEST_TAG_NAME,
+          GitCommitPropertyConstant.CLOSEST_TAG_COMMIT_COUNT,
+          GitCommitPropertyConstant.COMMIT_DESCRIBE,
+          GitCommitPropertyConstant.COMMIT_SHORT_DESCRIBE);
+
+  private final File cacheFile;
+  private final LogInterface log;
+
+  /**
+   * Creates a history cache.
+   *
+   * @param cacheFile The file the history is persisted in, or {@code null} to persist it inside
+   *     the git directory of the repository
+   * @param log The logger to log any messages
+   */
+  HistoryCache(@Nullable File cacheFile, @NonNull LogInterface log) {
+    this.cacheFile = cacheFile;
+    this.log = log;
+  }
+
+  /**
+   * Wraps the given {@link GitDataLoader} so that the values derived from the history are served
+   * from (or computed with the help of) the remembered values.
+   *
+   * @param delegate The {@link GitDataLoader} that computes the git data
+   * @return A {@link GitDataLoader} that remembers the values derived from the history
+   */
+  GitDataLoader wrap(@NonNull GitDataLoader delegate) {
+    return (cb, properties) -> {
+      File dotGitDirectory =
+          new GitDirLocator(
+                  cb.getProjectBaseDir(), cb.useNativeGit(), cb.shouldFailOnNoGitDirectory())
+              .lookupGitDirectory(cb.getDotGitDirectory());
+      String commit = null;
+      Path commonDir = null;
+      if (dotGitDirectory != null && !cb.isPerModuleVersions()) {
+        try {
+          commonDir = RepositoryFingerprint.resolveCommonDir(dotGitDirectory.toPath());
+          if (!RepositoryFingerprint.isHistoryRewritten(commonDir)) {
+            commit =
+                RepositoryFingerprint.resolveCommit(
+                    dotGitDirectory.toPath(), cb.getEvaluateOnCommit());
+          }
+        } catch (IOException e) {
+          log.warn("Unable to resolve the commit, not using the history cache: " + e);
+        }
+      }
+      if (commit == null) {
+        delegate.loadGitData(cb, properties);
+        return;
+      }
+
+      Path file =
+          cacheFile != null
+              ? cacheFile.toPath()
+              : commonDir.resolve("git-commit-id").resolve("history-cache.properties");
+      Properties cache = read(file);
+      String tagContext = computeTagContext(cb, commonDir);
+      String prefixDot = cb.getPrefixDot();
+      Set<String> volatileKeys = GitDataCache.getVolatileKeys(cb);
+
+      String totalCommitCountKey = prefixDot + GitCommitPropertyConstant.TOTAL_COMMIT_COUNT;
+      if (!properties.containsKey(totalCommitCountKey) && isIncluded(cb, totalCommitCountKey)) {
+        String count = cache.getProperty(commit + TOTAL_COMMIT_COUNT_SUFFIX);
+        if (count == null) {
+          FlightRecorderEvents.Span span = FlightRecorderEvents.beginGitOperation();
+          try {
+            count = countFromClosestAncestor(commonDir, commit, cache);
+          } finally {
+            span.end("history cache ancestor walk");
+          }
+        }
+        if (count != null) {
+          properties.setProperty(totalCommitCountKey, count);
+        }
+      }
+      if (tagContext != null) {
+        for (String key : TAG_KEYS) {
+          String value = cache.getProperty(commit + "." + tagContext + "." + key);
+          if (value != null && !volatileKeys.contains(prefixDot + key)) {
+            properties.putIfAbsent(prefixDot + key, value);
+          }
+        }
+      }
+
+      delegate.loadGitData(cb, properties);
+
+      Properties updates = new Properties();
+      String count = properties.getProperty(totalCommitCountKey);
+      if (count != null && !count.isEmpty()) {
+        updates.setProperty(commit + TOTAL_COMMIT_COUNT_SUFFIX, count);
+      }
+      if (tagContext != null) {
+        for (String key : TAG_KEYS) {
+          String value = properties.getProperty(prefixDot + key);
+          if (value != null && !volatileKeys.contains(prefixDot + key)) {
+            updates.setProperty(commit + "." + tagContext + "." + key, value);
+          }
+        }
+      }
+      updates.entrySet().removeIf(entry -> entry.getValue().equals(cache.get(entry.getKey())));
+      if (!updates.isEmpty()) {
+        updates.setProperty(commit + WRITTEN_SUFFIX, String.valueOf(System.currentTimeMillis()));
+        update(file, updates);
+      }
+    };
+  }
+
+  /**
+   * Merges the given entries into the cache file. The file is re-read while holding the lock, so
+   * that the entries written by concurrent builds in the meantime are kept.
+   *
+   * @param file The file the history is persisted in
+   * @param updates The entries that should be added to (or replaced in) the cache
+   */
+  void update(@NonNull Path file, @NonNull Properties updates) {
+    Path target = file.toAbsolutePath();
+    Path lockFile = target.resolveSibling(target.getFileName() + ".lock");
+    // the file lock is held by the whole JVM, the threads of a parallel build need to take turns
+    synchronized (HistoryCache.class) {
+      try {
+        Files.createDirectories(target.getParent());
+        try (FileChannel channel =
+                FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = channel.lock()) {
+          Properties cache = read(target);
+          cache.putAll(updates);
+          evictOldest(cache, MAX_ENTRIES);
+          write(target, cache);
+        }
+      } catch (IOException e) {
+        log.warn("Unable to write the history cache " + target + ": " + e);
+      }
+    }
+  }
+
+  /**
+   * Evicts the commits whose values were written the longest time ago until the cache holds at
+   * most the given number of entries. Commits that were written by an older version of the plugin
+   * (and thus carry no timestamp) are evicted first.
+   *
+   * @param cache The cache to evict the entries from
+   * @param maxEntries The number of entries the cache should hold at most
+   */
+  static void evictOldest(@NonNull Properties cache, int maxEntries) {
+    if (cache.size() <= maxEntries) {
+      return;
+    }
+    Map<String, List<Object>> keysByCommit = new HashMap<>();
+    for (Object key : cache.keySet()) {
+      String name = (String) key;
+      int dot = name.indexOf('.');
+      String commit = dot < 0 ? name : name.substring(0, dot);
+      keysByCommit.computeIfAbsent(commit, c -> new ArrayList<>()).add(key);
+    }
+    List<String> oldestFirst = new ArrayList<>(keysByCommit.keySet());
+    oldestFirst.sort(Comparator.comparingLong(commit -> written(cache, commit)));
+    for (String commit : oldestFirst) {
+      if (cache.size() <= maxEntries) {
+        return;
+      }
+      keysByCommit.get(commit).forEach(cache::remove);
+    }
+  }
+
+  private static long written(@NonNull Properties cache, @NonNull String commit) {
+    try {
+      return Long.parseLong(cache.getProperty(commit + WRITTEN_SUFFIX, "0"));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  private static boolean isIncluded(GitCommitIdPlugin.@NonNull Callback cb, @NonNull String key) {
+    return PropertiesFilterer.isIncluded(
+        key, cb.getIncludeOnlyProperties(), cb.getExcludeProperties());
+  }
+
+  /**
+   * Counts the commits of the given commit by searching (breadth first) for the closest ancestor
+   * whose count is remembered, and only walking the commits in between.
+   *
+   * @return The number of commits, or {@code null} if no remembered ancestor is close enough
+   */
+  @Nullable
+  private String countFromClosestAncestor(
+      @NonNull Path commonDir, @NonNull String commit, @NonNull Properties cache) {
+    if (cache.isEmpty()) {
+      return null;
+    }
+    try (Repository repository =
+            new FileRepositoryBuilder().setGitDir(commonDir.toFile()).setMustExist(true).build();
+        RevWalk walk = new RevWalk(repository)) {
+      RevCommit start = walk.parseCommit(ObjectId.fromString(commit));
+      Deque<RevCommit> queue = new ArrayDeque<>();
+      Set<RevCommit> visited = new HashSet<>();
+      queue.add(start);
+      visited.add(start);
+      while (!queue.isEmpty() && visited.size() <= MAX_ANCESTOR_DISTANCE) {
+        RevCommit candidate = queue.poll();
+        String known = cache.getProperty(candidate.name() + TOTAL_COMMIT_COUNT_SUFFIX);
+        if (known != null) {
+          walk.reset();
+          walk.markStart(start);
+          walk.markUninteresting(candidate);
+          long count = Long.parseLong(known);
+          long walked = 0;
+          while (walk.next() != null) {
+            walked++;
+          }
+          log.info(
+              "Counted the commits starting from the remembered ancestor "
+                  + candidate.name()
+                  + " ("
+                  + walked
+                  + " new commits)");
+          return String.valueOf(count + walked);
+        }
+        for (RevCommit parent : candidate.getParents()) {
+          if (visited.add(parent)) {
+            walk.parseHeaders(parent);
+            queue.add(parent);
+          }
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      log.warn("Unable to count the commits incrementally: " + e);
+    }
+    return null;
+  }
+
+  /**
+   * Computes a key over the tags of the repository and all configuration options that have an
+   * influence on the closest tag and the describe.
+   *
+   * @return The key, or {@code null} if the tags could not be read
+   */
+  @Nullable
+  private String computeTagContext(
+      GitCommitIdPlugin.@NonNull Callback cb, @NonNull Path commonDir) {
+    StringBuilder context = new StringBuilder();
+    context.append(cb.getGitDescribe()).append('\n');
+    context.append(cb.getAbbrevLength()).append('\n');
+    context.append(cb.useNativeGit()).append('\n');
+    try {
+      Path tags = commonDir.resolve("refs").resolve("tags");
+      if (Files.isDirectory(tags)) {
+        try (Stream<Path> paths = Files.walk(tags)) {
+          List<Path> sortedTags =
+              paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+          for (Path tag : sortedTags) {
+            context
+                .append(commonDir.relativize(tag))
+                .append(' ')
+                .append(new String(Files.readAllBytes(tag), StandardCharsets.UTF_8).trim())
+                .append('\n');
+          }
+        }
+      }
+      Path packedRefs = commonDir.resolve("packed-refs");
+      if (Files.isRegularFile(packedRefs)) {
+        try (Stream<String> lines = Files.lines(packedRefs, StandardCharsets.UTF_8)) {
+          // the tags and the commits they peel to
+          lines
+              .filter(line -> line.contains(" refs/tags/") || line.startsWith("^"))
+              .forEach(line -> context.append(line).append('\n'));
+        }
+      }
+    } catch (IOException e) {
+      log.warn("Unable to read the tags, not caching the closest tag: " + e);
+      return null;
+    }
+    return GitDataCache.sha256(context.toString()).substring(0, 16);
+  }
+
+  @NonNull
+  private Properties read(@NonNull Path file) {
+    Properties cache = new Properties();
+    if (Files.isRegularFile(file)) {
+      try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+        cache.load(reader);
+      } catch (IOException | IllegalArgumentException e) {
+        log.warn("Unable to read the history cache " + file + ": " + e);
+        cache.clear();
+      }
+    }
+    return cache;
+  }
+
+  private static void write(@NonNull Path target, @NonNull Properties cache) throws IOException {
+    Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+    try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+      cache.store(writer, "git-commit-id-maven-plugin history cache");
+    }
+    try {
+      Files.move(
+          tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import pl.project13.core.log.LogInterface;
+
+/**
+ * Remembers the {@link RepositoryFingerprint} of the last execution inside an incremental build
+ * (e.g. an IDE build with m2e), so that the execution can be skipped as long as neither {@code
+ * HEAD}, nor any ref, nor the index changed, but is repeated after e.g. a checkout or a commit.
+ */
+final class IncrementalBuildStamp {
+  private final File stampFile;
+  private final LogInterface log;
+
+  /**
+   * Creates a stamp that is backed by the given file.
+   *
+   * @param stampFile The file the fingerprint is persisted in
+   * @param log The logger to log any messages
+   */
+  IncrementalBuildStamp(@NonNull File stampFile, @NonNull LogInterface log) {
+    this.stampFile = stampFile;
+    this.log = log;
+  }
+
+  /**
+   * Computes the current fingerprint of the given git directory.
+   *
+   * @param dotGitDirectory The git directory (e.g. {@code .git}) of the repository
+   * @return The fingerprint, or {@code null} if the repository could not be read
+   */
+  @Nullable
+  String fingerprint(@NonNull File dotGitDirectory) {
+    try {
+      return RepositoryFingerprint.of(dotGitDirectory.toPath()).toString();
+    } catch (IOException e) {
+      log.warn("Unable to fingerprint the repository " + dotGitDirectory + ": " + e);
+      return null;
+    }
+  }
+
+  /**
+   * Checks if the given fingerprint matches the one of the last execution.
+   *
+   * @param fingerprint The current fingerprint of the repository
+   * @return {@code true} if the repository did not change since the last execution
+   */
+  boolean isUpToDate(@Nullable String fingerprint) {
+    if (fingerprint == null || !stampFile.isFile()) {
+      return false;
+    }
+    try {
+      byte[] stored = Files.readAllBytes(stampFile.toPath());
+      return fingerprint.equals(new String(stored, StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      log.warn("Unable to read " + stampFile.getAbsolutePath() + ": " + e);
+      return false;
+    }
+  }
+
+  /**
+   * Stores the given fingerprint for the next execution.
+   *
+   * @param fingerprint The fingerprint of the repository the git data was computed from
+   */
+  void update(@Nullable String fingerprint) {
+    if (fingerprint == null) {
+      return;
+    }
+    Path target = stampFile.toPath().toAbsolutePath();
+    try {
+      Files.createDirectories(target.getParent());
+      Files.write(target, fingerprint.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      log.warn("Unable to write " + target + ": " + e);
+    }
+  }
+}
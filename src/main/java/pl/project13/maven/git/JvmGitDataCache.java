@@ -0,0 +1,349 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.jspecify.annotations.NonNull;
+import pl.project13.core.GitCommitIdExecutionException;
+import pl.project13.core.log.LogInterface;
+import pl.project13.core.util.GitDirLocator;
+import pl.project13.maven.git.GitCommitIdPluginRunner.GitDataLoader;
+
+/**
+ * Keeps the git data in memory for the lifetime of the JVM. This is useful for long living JVMs
+ * that run many builds (e.g. the <a href="https://github.com/apache/maven-mvnd">Maven Daemon</a>),
+ * where the classloader of the plugin and therefore this cache stays warm between builds.
+ *
+ * <p>A {@link WatchService} observes {@code HEAD}, {@code index}, {@code packed-refs} and {@code
+ * config} as well as everything under {@code refs}, any change there invalidates the git data of
+ * the repository. Since some platforms deliver those events with a delay, the content of {@code
+ * HEAD} and the ref it points to is also compared on every lookup. Like for the {@link
+ * GitDataCache}, properties that depend on the working tree are never served from this cache (see
+ * {@link GitDataCache#loadVolatileGitData}).
+ */
+final class JvmGitDataCache {
+  private static final JvmGitDataCache INSTANCE = new JvmGitDataCache();
+
+  /** The files inside the git directory whose modification invalidates the git data. */
+  private static final Set<String> WATCHED_FILES =
+      Collections.unmodifiableSet(
+          new HashSet<>(Arrays.asList("HEAD", "index", "packed-refs", "config")));
+
+  /** The number of repositories and configurations whose git data is kept at most. */
+  static final int MAX_CACHED_GIT_DATA = 64;
+
+  private final Map<String, CachedGitData> gitDataByKey;
+  private final Map<Path, Repository> repositoriesByGitDir = new HashMap<>();
+  private final Map<WatchKey, Repository> repositoriesByWatchKey = new HashMap<>();
+  private WatchService watchService;
+
+  /** Creates a new cache, besides our tests {@link #getInstance()} should be used. */
+  JvmGitDataCache() {
+    this(MAX_CACHED_GIT_DATA);
+  }
+
+  /**
+   * Creates a new cache that evicts the least recently used git data once the given number of
+   * repositories and configurations is exceeded. The watches of a repository are released along
+   * with its last git data.
+   *
+   * @param maxCachedGitData The number of repositories and configurations to keep at most
+   */
+  JvmGitDataCache(int maxCachedGitData) {
+    this.gitDataByKey =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, CachedGitData> eldest) {
+            if (size() <= maxCachedGitData) {
+              return false;
+            }
+            Path gitDir = eldest.getValue().gitDir;
+            if (values().stream()
+                .noneMatch(cached -> cached != eldest.getValue() && cached.gitDir.equals(gitDir))) {
+              release(gitDir);
+            }
+            return true;
+          }
+        };
+  }
+
+  /**
+   * Returns the cache that is shared by all executions inside this JVM (more precisely: all
+   * executions that share the classloader of this plugin).
+   *
+   * @return The cache that is shared by all executions inside this JVM
+   */
+  static JvmGitDataCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Wraps the given {@link GitDataLoader} so that it only gets invoked when the git data of the
+   * repository changed since the last invocation with the same configuration.
+   *
+   * @param delegate The {@link GitDataLoader} that computes the git data
+   * @param log The logger to log any messages
+   * @return A {@link GitDataLoader} that serves the git data from memory whenever possible
+   */
+  GitDataLoader wrap(@NonNull GitDataLoader delegate, @NonNull LogInterface log) {
+    return (cb, properties) -> {
+      File dotGitDirectory =
+          new GitDirLocator(
+                  cb.getProjectBaseDir(), cb.useNativeGit(), cb.shouldFailOnNoGitDirectory())
+              .lookupGitDirectory(cb.getDotGitDirectory());
+      if (dotGitDirectory == null) {
+        delegate.loadGitData(cb, properties);
+        return;
+      }
+
+      Path gitDir = canonicalPath(dotGitDirectory.toPath());
+      String key = gitDir + "\n" + GitDataCache.computeConfigurationKey(cb);
+      String headStamp = readHeadStamp(gitDir);
+
+      Repository repository;
+      CachedGitData cached;
+      synchronized (this) {
+        repository = watch(gitDir, log);
+        cached = gitDataByKey.get(key);
+      }
+      if (cached != null
+          && repository.watched
+          && cached.generation == repository.generation
+          && cached.headStamp.equals(headStamp)) {
+        log.info("Using the git data cached in this JVM");
+        cached.gitData.forEach(properties::putIfAbsent);
+        GitDataCache.loadVolatileGitData(delegate, cb, dotGitDirectory, properties, log);
+        return;
+      }
+
+      // a change while we compute must invalidate the result, hence remember the state beforehand
+      long generation = repository.generation;
+      delegate.loadGitData(cb, properties);
+
+      Properties gitData = new Properties();
+      gitData.putAll(properties);
+      Set<String> volatileKeys = GitDataCache.getVolatileKeys(cb);
+      volatileKeys.forEach(gitData::remove);
+      synchronized (this) {
+        if (repository.watched) {
+          gitDataByKey.put(key, new CachedGitData(gitDir, gitData, generation, headStamp));
+        }
+      }
+    };
+  }
+
+  /**
+   * Registers the watches for the given git directory (unless already done) and processes all
+   * events that happened since the last invocation.
+   */
+  @NonNull
+  private Repository watch(@NonNull Path gitDir, @NonNull LogInterface log) {
+    processEvents();
+    Repository repository = repositoriesByGitDir.get(gitDir);
+    if (repository == null || !repository.watched) {
+      if (repository == null) {
+        repository = new Repository(gitDir);
+        repositoriesByGitDir.put(gitDir, repository);
+      }
+      try {
+        register(repository);
+        repository.watched = true;
+      } catch (IOException e) {
+        // without a watch we can't know when to invalidate the git data, don't cache anything
+        log.warn("Unable to watch " + gitDir + " for changes: " + e);
+        cancel(repository);
+      }
+    }
+    return repository;
+  }
+
+  private void register(@NonNull Repository repository) throws IOException {
+    if (watchService == null) {
+      watchService = FileSystems.getDefault().newWatchService();
+    }
+    Path gitDir = repository.gitDir;
+    Path commonDir = resolveCommonDir(gitDir);
+    register(repository, gitDir);
+    if (!commonDir.equals(gitDir)) {
+      register(repository, commonDir);
+    }
+    Path refs = commonDir.resolve("refs");
+    if (Files.isDirectory(refs)) {
+      try (Stream<Path> paths = Files.walk(refs)) {
+        for (Path directory : paths.filter(Files::isDirectory).collect(Collectors.toList())) {
+          register(repository, directory);
+        }
+      }
+    }
+  }
+
+  private void register(@NonNull Repository repository, @NonNull Path directory)
+      throws IOException {
+    WatchKey watchKey = directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+    repository.watchKeys.add(watchKey);
+    repositoriesByWatchKey.put(watchKey, repository);
+  }
+
+  private void processEvents() {
+    if (watchService == null) {
+      return;
+    }
+    WatchKey watchKey;
+    while ((watchKey = watchService.poll()) != null) {
+      Repository repository = repositoriesByWatchKey.get(watchKey);
+      List<WatchEvent<?>> events = watchKey.pollEvents();
+      boolean valid = watchKey.reset();
+      if (repository == null) {
+        continue;
+      }
+      Path directory = (Path) watchKey.watchable();
+      boolean inGitDir = directory.equals(repository.gitDir)
+          || directory.equals(resolveCommonDir(repository.gitDir));
+      for (WatchEvent<?> event : events) {
+        if (event.kind() == OVERFLOW
+            || !inGitDir
+            || WATCHED_FILES.contains(String.valueOf(event.context()))
+            || "refs".equals(String.valueOf(event.context()))) {
+          repository.generation++;
+          if (!inGitDir && event.kind() == ENTRY_CREATE) {
+            // a new directory below refs (e.g. refs/heads/feature) needs to be watched as well
+            repository.watched = false;
+          }
+        }
+      }
+      if (!valid) {
+        repository.generation++;
+        cancel(repository);
+      }
+    }
+  }
+
+  private void cancel(@NonNull Repository repository) {
+    for (WatchKey watchKey : repository.watchKeys) {
+      watchKey.cancel();
+      repositoriesByWatchKey.remove(watchKey);
+    }
+    repository.watchKeys.clear();
+    repository.watched = false;
+  }
+
+  /** Cancels the watches of the given git directory and forgets about it. */
+  private void release(@NonNull Path gitDir) {
+    Repository repository = repositoriesByGitDir.remove(gitDir);
+    if (repository != null) {
+      cancel(repository);
+    }
+  }
+
+  /** Tells whether the given git directory is watched for changes. Only meant for our tests. */
+  synchronized boolean isWatched(@NonNull Path gitDir) {
+    Repository repository = repositoriesByGitDir.get(canonicalPath(gitDir));
+    return repository != null && repository.watched;
+  }
+
+  /** Closes the {@link WatchService} and forgets everything. Only meant for our tests. */
+  synchronized void close() throws IOException {
+    gitDataByKey.clear();
+    repositoriesByGitDir.clear();
+    repositoriesByWatchKey.clear();
+    if (watchService != null) {
+      watchService.close();
+      watchService = null;
+    }
+  }
+
+  @NonNull
+  private static String readHeadStamp(@NonNull Path gitDir) throws GitCommitIdExecutionException {
+    try {
+      return RepositoryFingerprint.readHead(gitDir);
+    } catch (IOException e) {
+      throw new GitCommitIdExecutionException("Unable to read the HEAD of " + gitDir, e);
+    }
+  }
+
+  @NonNull
+  private static Path resolveCommonDir(@NonNull Path gitDir) {
+    return canonicalPath(RepositoryFingerprint.resolveCommonDir(gitDir));
+  }
+
+  @NonNull
+  private static Path canonicalPath(@NonNull Path path) {
+    try {
+      return path.toRealPath();
+    } catch (IOException e) {
+      return path.toAbsolutePath().normalize();
+    }
+  }
+
+  /** The watches of a single git directory. */
+  private static final class Repository {
+    private final Path gitDir;
+    private final Set<WatchKey> watchKeys = new HashSet<>();
+    private volatile long generation;
+    private volatile boolean watched;
+
+    private Repository(@NonNull Path gitDir) {
+      this.gitDir = gitDir;
+    }
+  }
+
+  /** The git data of a repository and configuration. */
+  private static final class CachedGitData {
+    private final Path gitDir;
+    private final Properties gitData;
+    private final long generation;
+    private final String headStamp;
+
+    private CachedGitData(
+        @NonNull Path gitDir,
+        @NonNull Properties gitData,
+        long generation,
+        @NonNull String headStamp) {
+      this.gitDir = gitDir;
+      this.gitData = gitData;
+      this.generation = generation;
+      this.headStamp = headStamp;
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.function.Supplier;
+import org.jspecify.annotations.NonNull;
+import pl.project13.core.log.LogInterface;
+
+/**
+ * A {@link LogInterface} that can tell whether it logs anything at all, so that messages are only
+ * built when they will actually be logged (by default the plugin only logs when {@code verbose} is
+ * enabled).
+ */
+interface LazyLogInterface extends LogInterface {
+  /**
+   * Tells whether messages are logged at all.
+   *
+   * @return {@code false} if every message is dropped
+   */
+  boolean isEnabled();
+
+  /**
+   * Logs a debug message that is only built when messages are logged.
+   *
+   * @param msg Supplies the message to log
+   */
+  default void debug(@NonNull Supplier<String> msg) {
+    if (isEnabled()) {
+      debug(msg.get());
+    }
+  }
+
+  /**
+   * Logs an info message that is only built when messages are logged.
+   *
+   * @param msg Supplies the message to log
+   */
+  default void info(@NonNull Supplier<String> msg) {
+    if (isEnabled()) {
+      info(msg.get());
+    }
+  }
+
+  /**
+   * Adapts the given {@link LogInterface}, which is assumed to log every message unless it already
+   * is a {@link LazyLogInterface}.
+   *
+   * @param log The {@link LogInterface} to adapt
+   * @return A {@link LazyLogInterface} that logs to the given {@link LogInterface}
+   */
+  @NonNull
+  static LazyLogInterface of(@NonNull LogInterface log) {
+    if (log instanceof LazyLogInterface) {
+      return (LazyLogInterface) log;
+    }
+    return new LazyLogInterface() {
+      @Override
+      public boolean isEnabled() {
+        return true;
+      }
+
+      @Override
+      public void debug(String msg) {
+        log.debug(msg);
+      }
+
+      @Override
+      public void info(String msg) {
+        log.info(msg);
+      }
+
+      @Override
+      public void warn(String msg) {
+        log.warn(msg);
+      }
+
+      @Override
+      public void error(String msg) {
+        log.error(msg);
+      }
+
+      @Override
+      public void error(String msg, Throwable t) {
+        log.error(msg, t);
+      }
+    };
+  }
+}
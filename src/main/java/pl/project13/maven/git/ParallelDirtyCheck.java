@@ -0,0 +1,263 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Determines whether tracked files of the working tree differ from the index by comparing the
+ * metadata of the files (size, type, mode and timestamp) in parallel.
+ *
+ * <p>The entries of the index are partitioned along the top-level directories and checked on the
+ * common {@link ForkJoinPool}. A missing file, a conflict or a changed size, type or mode is a
+ * modification and stops all workers. Entries whose timestamp changed (or that were written too
+ * close to the index to trust their timestamp) need their content to be compared, this is done by
+ * the sequential check that is restricted to those entries once all workers are done.
+ */
+final class ParallelDirtyCheck {
+  /** Partitions with at most this many entries are checked on a single thread. */
+  static final int PARTITION_SIZE = 512;
+
+  private final Path workTree;
+  private final Instant indexModified;
+  private final boolean checkExecutable;
+  private final boolean posix;
+  private final AtomicBoolean modified = new AtomicBoolean();
+  private final Queue<String> suspects = new ConcurrentLinkedQueue<>();
+
+  private ParallelDirtyCheck(
+      @NonNull Path workTree, @NonNull Instant indexModified, boolean checkExecutable) {
+    this.workTree = workTree;
+    this.indexModified = indexModified;
+    this.checkExecutable = checkExecutable;
+    // the permissions come with the same stat call as the size and the timestamp
+    this.posix = workTree.getFileSystem().supportedFileAttributeViews().contains("posix");
+  }
+
+  /**
+   * Determines whether tracked files of the working tree differ from the index. Staged changes
+   * (the index compared to {@code HEAD}) are not considered.
+   *
+   * @param repository The repository
+   * @param pathFilter The path (relative to the working tree) the check should be restricted to,
+   *     or {@code null} for the whole working tree
+   * @return {@code true} if a tracked file was modified (or is missing or conflicting)
+   * @throws IOException if the index could not be read
+   */
+  static boolean isWorkTreeModified(@NonNull Repository repository, @Nullable String pathFilter)
+      throws IOException {
+    DirCache index = repository.readDirCache();
+    DirCacheEntry[] entries = index.getEntriesWithin(pathFilter == null ? "" : pathFilter);
+    if (entries.length == 0) {
+      return false;
+    }
+
+    File indexFile = repository.getIndexFile();
+    ParallelDirtyCheck check =
+        new ParallelDirtyCheck(
+            repository.getWorkTree().toPath(),
+            indexFile.exists()
+                ? Files.getLastModifiedTime(indexFile.toPath()).toInstant()
+                : Instant.MAX,
+            repository
+                .getConfig()
+                .getBoolean(
+                    ConfigConstants.CONFIG_CORE_SECTION,
+                    ConfigConstants.CONFIG_KEY_FILEMODE,
+                    true));
+    int prefixLength = pathFilter == null ? 0 : pathFilter.length() + 1;
+    ForkJoinPool.commonPool()
+        .invoke(check.new Partition(entries, 0, entries.length, prefixLength));
+    if (check.modified.get()) {
+      return true;
+    }
+    if (check.suspects.isEmpty()) {
+      return false;
+    }
+    // compare the content just like the sequential check does
+    return DirtyCheck.hasTrackedChanges(
+        repository, PathFilterGroup.createFromStrings(check.suspects));
+  }
+
+  /**
+   * Checks a single entry of the index.
+   *
+   * @return {@code true} if the entry was modified, {@code false} if it is unmodified or its
+   *     content still needs to be compared (in which case it was added to the {@link #suspects})
+   */
+  private boolean isModified(@NonNull DirCacheEntry entry) throws IOException {
+    if (entry.getStage() != DirCacheEntry.STAGE_0) {
+      return true;
+    }
+    if (entry.isAssumeValid() || entry.isSkipWorkTree()) {
+      return false;
+    }
+    FileMode mode = entry.getFileMode();
+    if (mode == FileMode.GITLINK || entry.isIntentToAdd() || entry.isSmudged()) {
+      // leave the special cases to the sequential check
+      suspects.add(entry.getPathString());
+      return false;
+    }
+
+    Path file = workTree.resolve(entry.getPathString());
+    boolean readPermissions = checkExecutable && posix;
+    BasicFileAttributes attributes;
+    try {
+      attributes =
+          readPermissions
+              ? Files.readAttributes(file, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS)
+              : Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+    } catch (NoSuchFileException e) {
+      return true;
+    }
+    if (mode == FileMode.SYMLINK ? !attributes.isSymbolicLink() : !attributes.isRegularFile()) {
+      return true;
+    }
+    if (entry.getLength() != 0 && entry.getLength() != (int) attributes.size()) {
+      return true;
+    }
+    if (checkExecutable && mode != FileMode.SYMLINK) {
+      boolean executable =
+          readPermissions
+              ? ((PosixFileAttributes) attributes)
+                  .permissions()
+                  .contains(PosixFilePermission.OWNER_EXECUTE)
+              : Files.isExecutable(file);
+      if ((mode == FileMode.EXECUTABLE_FILE) != executable) {
+        return true;
+      }
+    }
+    Instant lastModified = attributes.lastModifiedTime().toInstant();
+    if (!lastModified.equals(entry.getLastModifiedInstant())
+        || entry.getLength() == 0
+        || !entry.getLastModifiedInstant().isBefore(indexModified)) {
+      suspects.add(entry.getPathString());
+    }
+    return false;
+  }
+
+  /** A contiguous range of the (sorted) entries of the index. */
+  private final class Partition extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final DirCacheEntry[] entries;
+    private final int from;
+    private final int to;
+    private final int prefixLength;
+
+    Partition(DirCacheEntry[] entries, int from, int to, int prefixLength) {
+      this.entries = entries;
+      this.from = from;
+      this.to = to;
+      this.prefixLength = prefixLength;
+    }
+
+    @Override
+    protected void compute() {
+      if (modified.get()) {
+        return;
+      }
+      if (to - from <= PARTITION_SIZE) {
+        checkEntries();
+        return;
+      }
+      // group whole directories into partitions of roughly PARTITION_SIZE entries
+      List<Partition> partitions = new ArrayList<>();
+      int start = from;
+      while (start < to) {
+        int end = endOfDirectory(start);
+        while (end < to && end - start < PARTITION_SIZE) {
+          end = endOfDirectory(end);
+        }
+        partitions.add(new Partition(entries, start, end, prefixLength));
+        start = end;
+      }
+      if (partitions.size() == 1) {
+        // a single (large) directory, simply cut it in half
+        int middle = (from + to) >>> 1;
+        partitions.clear();
+        partitions.add(new Partition(entries, from, middle, prefixLength));
+        partitions.add(new Partition(entries, middle, to, prefixLength));
+      }
+      invokeAll(partitions);
+    }
+
+    private void checkEntries() {
+      try {
+        for (int i = from; i < to && !modified.get(); i++) {
+          if (isModified(entries[i])) {
+            modified.set(true);
+          }
+        }
+      } catch (IOException e) {
+        // unreadable, let the sequential check decide
+        for (int i = from; i < to; i++) {
+          suspects.add(entries[i].getPathString());
+        }
+      }
+    }
+
+    /**
+     * Finds the end of the directory the given entry belongs to. The directory is the first path
+     * segment after the {@link #prefixLength}, files directly inside it are grouped together.
+     */
+    private int endOfDirectory(int start) {
+      String first = entries[start].getPathString();
+      int end = start + 1;
+      while (end < to && isSameDirectory(first, entries[end].getPathString())) {
+        end++;
+      }
+      return end;
+    }
+
+    private boolean isSameDirectory(@NonNull String path, @NonNull String other) {
+      int slash = path.indexOf('/', prefixLength);
+      if (slash < 0) {
+        return other.indexOf('/', prefixLength) < 0;
+      }
+      return other.length() > slash
+          && other.charAt(slash) == '/'
+          && path.regionMatches(prefixLength, other, prefixLength, slash - prefixLength);
+    }
+  }
+}
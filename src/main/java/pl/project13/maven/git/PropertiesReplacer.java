@@ -18,11 +18,15 @@
 
 package pl.project13.maven.git;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import org.apache.maven.plugin.PluginParameterExpressionEvaluator;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluationException;
 import pl.project13.core.log.LogInterface;
 
 /**
@@ -30,8 +34,17 @@ import pl.project13.core.log.LogInterface;
  * https://github.com/git-commit-id/git-commit-id-maven-plugin/issues/317.
  */
 public class PropertiesReplacer {
-  private final LogInterface log;
+  private final LazyLogInterface log;
   private final PluginParameterExpressionEvaluator expressionEvaluator;
+  private final boolean parallel;
+
+  /**
+   * The evaluated expressions of this instance, i.e. of a single execution. They are deliberately
+   * not shared across executions (e.g. in the session), since the same expression evaluates
+   * differently for another project, and even for the same project once properties (like the ones
+   * published by this plugin) changed in between.
+   */
+  private final Map<String, String> evaluatedExpressions = new ConcurrentHashMap<>();
 
   /**
    * Constructor to encapsulates all references required to perform property replacements.
@@ -42,8 +55,25 @@ public class PropertiesReplacer {
    */
   public PropertiesReplacer(
       LogInterface log, PluginParameterExpressionEvaluator expressionEvaluator) {
-    this.log = log;
+    this(log, expressionEvaluator, false);
+  }
+
+  /**
+   * Constructor to encapsulates all references required to perform property replacements.
+   *
+   * @param log The logger to log any messages
+   * @param expressionEvaluator Maven's PluginParameterExpressionEvaluator (see
+   *     https://github.com/git-commit-id/git-commit-id-maven-plugin/issues/413 why it's needed)
+   * @param parallel {@code true} if a replacement that applies to all properties should process
+   *     them in parallel
+   */
+  public PropertiesReplacer(
+      LogInterface log,
+      PluginParameterExpressionEvaluator expressionEvaluator,
+      boolean parallel) {
+    this.log = LazyLogInterface.of(log);
     this.expressionEvaluator = expressionEvaluator;
+    this.parallel = parallel;
   }
 
   /**
@@ -55,145 +85,122 @@ public class PropertiesReplacer {
   public void performReplacement(
       Properties properties, List<ReplacementProperty> replacementProperties) {
     if ((replacementProperties != null) && (properties != null)) {
-      for (ReplacementProperty replacementProperty : replacementProperties) {
-        String propertyKey = replacementProperty.getProperty();
-        if (propertyKey == null) {
-          performReplacementOnAllGeneratedProperties(properties, replacementProperty);
+      for (ReplacementPlan.Step step : ReplacementPlan.compile(replacementProperties).getSteps()) {
+        if (!step.isLive()) {
+          log.info(
+              () ->
+                  "skip replacement of property "
+                      + step.getProperty()
+                      + ", a later replacement overwrites "
+                      + step.getOutputKey());
+          continue;
+        }
+        if (step.isMissingToken()) {
+          log.error("found replacementProperty without required token.");
+        }
+        if (step.getProperty() == null) {
+          performReplacementOnAllGeneratedProperties(properties, step);
         } else {
-          performReplacementOnSingleProperty(properties, replacementProperty, propertyKey);
+          performReplacementOnSingleProperty(properties, step);
         }
       }
     }
   }
 
   private void performReplacementOnAllGeneratedProperties(
-      Properties properties, ReplacementProperty replacementProperty) {
-    for (String propertyName : properties.stringPropertyNames()) {
-      String content = properties.getProperty(propertyName);
-      String result = performReplacement(replacementProperty, content);
-      if ((replacementProperty.getPropertyOutputSuffix() != null)
-          && (!replacementProperty.getPropertyOutputSuffix().isEmpty())) {
-        String newPropertyKey = propertyName + "." + replacementProperty.getPropertyOutputSuffix();
-        properties.setProperty(newPropertyKey, result);
-        log.info(
-            "apply replace on property "
-                + propertyName
-                + " and save to "
-                + newPropertyKey
-                + ": original value '"
-                + content
-                + "' with '"
-                + result
-                + "'");
-      } else {
-        properties.setProperty(propertyName, result);
-        log.info(
-            "apply replace on property "
-                + propertyName
-                + ": original value '"
-                + content
-                + "' with '"
-                + result
-                + "'");
+      Properties properties, ReplacementPlan.Step step) {
+    if (parallel) {
+      Map<String, String> contents = new HashMap<>();
+      for (String propertyName : properties.stringPropertyNames()) {
+        contents.put(propertyName, properties.getProperty(propertyName));
+      }
+      Map<String, String> results = new ConcurrentHashMap<>();
+      contents.entrySet().parallelStream()
+          .forEach(
+              content ->
+                  performReplacementOnProperty(
+                      step, content.getKey(), content.getValue(), results::put));
+      // publish all results at once instead of locking the properties for every single one
+      properties.putAll(results);
+    } else {
+      for (String propertyName : properties.stringPropertyNames()) {
+        performReplacementOnProperty(
+            step, propertyName, properties.getProperty(propertyName), properties::setProperty);
       }
     }
   }
 
   private void performReplacementOnSingleProperty(
-      Properties properties, ReplacementProperty replacementProperty, String propertyKey) {
-    String content = properties.getProperty(propertyKey);
-    String result = performReplacement(replacementProperty, content);
-    if ((replacementProperty.getPropertyOutputSuffix() != null)
-        && (!replacementProperty.getPropertyOutputSuffix().isEmpty())) {
-      String newPropertyKey = propertyKey + "." + replacementProperty.getPropertyOutputSuffix();
-      properties.setProperty(newPropertyKey, result);
+      Properties properties, ReplacementPlan.Step step) {
+    String propertyKey = step.getProperty();
+    performReplacementOnProperty(
+        step, propertyKey, properties.getProperty(propertyKey), properties::setProperty);
+  }
+
+  private void performReplacementOnProperty(
+      ReplacementPlan.Step step,
+      String propertyKey,
+      String content,
+      BiConsumer<String, String> output) {
+    String result = performReplacement(step, content);
+    if (step.hasOutputSuffix()) {
+      String newPropertyKey = step.outputKeyOf(propertyKey);
+      output.accept(newPropertyKey, result);
       log.info(
-          "apply replace on property "
-              + propertyKey
-              + " and save to "
-              + newPropertyKey
-              + ": original value '"
-              + content
-              + "' with '"
-              + result
-              + "'");
+          () ->
+              "apply replace on property "
+                  + propertyKey
+                  + " and save to "
+                  + newPropertyKey
+                  + ": original value '"
+                  + content
+                  + "' with '"
+                  + result
+                  + "'");
     } else {
-      properties.setProperty(propertyKey, result);
+      output.accept(propertyKey, result);
       log.info(
-          "apply replace on property "
-              + propertyKey
-              + ": original value '"
-              + content
-              + "' with '"
-              + result
-              + "'");
+          () ->
+              "apply replace on property "
+                  + propertyKey
+                  + ": original value '"
+                  + content
+                  + "' with '"
+                  + result
+                  + "'");
     }
   }
 
-  private String performReplacement(ReplacementProperty replacementProperty, String content) {
-    String evaluationContent = content;
-    if (evaluationContent == null
-        || evaluationContent.isEmpty()
-        || replacementProperty.isForceValueEvaluation()) {
-      evaluationContent = replacementProperty.getValue();
-    }
+  private String performReplacement(ReplacementPlan.Step step, String content) {
+    String evaluationContent = step.evaluationContentOf(content);
     String result = "";
     try {
-      result =
-          Optional.ofNullable(expressionEvaluator.evaluate(evaluationContent))
-              .map(x -> x.toString())
-              .orElse(evaluationContent);
+      result = evaluate(evaluationContent);
     } catch (Exception e) {
       log.error("Something went wrong performing the replacement.", e);
     }
-    if (replacementProperty != null) {
-      result =
-          performTransformationRules(
-              replacementProperty, result, TransformationRule.ApplyEnum.BEFORE);
-      if (replacementProperty.isRegex()) {
-        result =
-            replaceRegex(result, replacementProperty.getToken(), replacementProperty.getValue());
-      } else {
-        result =
-            replaceNonRegex(result, replacementProperty.getToken(), replacementProperty.getValue());
-      }
-      result =
-          performTransformationRules(
-              replacementProperty, result, TransformationRule.ApplyEnum.AFTER);
-    }
-    return result;
-  }
-
-  private String performTransformationRules(
-      ReplacementProperty replacementProperty,
-      String content,
-      TransformationRule.ApplyEnum forRule) {
-    String result = content;
-    if ((replacementProperty.getTransformationRules() != null)
-        && (!replacementProperty.getTransformationRules().isEmpty())) {
-      for (TransformationRule transformationRule : replacementProperty.getTransformationRules()) {
-        if (transformationRule.getApplyRule().equals(forRule)) {
-          result = transformationRule.getActionRule().perform(result);
-        }
-      }
-    }
-    return result;
+    return step.apply(result);
   }
 
-  private String replaceRegex(String content, String token, String value) {
-    if (token == null) {
-      log.error("found replacementProperty without required token.");
+  /**
+   * Evaluates the maven expressions (e.g. {@code ${project.version}}) inside the given content.
+   * Content without any {@code $} can't contain an expression (nor an escaped {@code $$}), so it
+   * is returned as is. The results of all other evaluations are memoized for the lifetime of this
+   * instance (one execution), since the same values (e.g. the configured replacement value) are
+   * usually evaluated for many properties.
+   */
+  private String evaluate(String content) throws ExpressionEvaluationException {
+    if (content == null || content.indexOf('$') < 0) {
       return content;
     }
-    final Pattern compiledPattern = Pattern.compile(token);
-    return compiledPattern.matcher(content).replaceAll(value == null ? "" : value);
-  }
-
-  private String replaceNonRegex(String content, String token, String value) {
-    if (token == null) {
-      log.error("found replacementProperty without required token.");
-      return content;
+    String evaluated = evaluatedExpressions.get(content);
+    if (evaluated == null) {
+      evaluated =
+          Optional.ofNullable(expressionEvaluator.evaluate(content))
+              .map(x -> x.toString())
+              .orElse(content);
+      evaluatedExpressions.put(content, evaluated);
     }
-    return content.replace(token, value == null ? "" : value);
+    return evaluated;
   }
 }
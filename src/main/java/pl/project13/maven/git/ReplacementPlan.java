@@ -0,0 +1,277 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * The configured {@link ReplacementProperty replacementProperties} compiled into an immutable
+ * list of {@link Step steps}: every regular expression is compiled once, the {@link
+ * TransformationRule transformationRules} are split into the ones to apply before and after the
+ * replacement and all output keys are resolved upfront.
+ *
+ * <p>The steps form a dependency graph: a step reads its input property (unless it forces the
+ * evaluation of its value) and writes its output key, a step without a property reads and writes
+ * all properties. The configured order is a topological order of that graph (a step reads what
+ * the previous steps wrote), hence the steps are evaluated in that order. A step whose output is
+ * overwritten by a later step before any other step read it, is {@link Step#isLive() dead} and
+ * skipped.
+ *
+ * <p>Compiled plans are shared across all modules of a reactor (and all builds in the same JVM),
+ * so a replacement configured in a parent pom is only compiled once.
+ */
+final class ReplacementPlan {
+  /** The number of distinct configurations that are kept before the shared plans are dropped. */
+  private static final int MAX_SHARED_PLANS = 64;
+
+  private static final Map<String, ReplacementPlan> SHARED_PLANS = new ConcurrentHashMap<>();
+
+  private final List<Step> steps;
+
+  private ReplacementPlan(@NonNull List<Step> steps) {
+    this.steps = Collections.unmodifiableList(steps);
+  }
+
+  /**
+   * Compiles the given replacements into a plan, or returns the plan that was already compiled for
+   * an equal configuration.
+   *
+   * @param replacementProperties The replacements to compile
+   * @return The compiled plan
+   */
+  @NonNull
+  static ReplacementPlan compile(@NonNull List<ReplacementProperty> replacementProperties) {
+    StringBuilder key = new StringBuilder();
+    for (ReplacementProperty replacementProperty : replacementProperties) {
+      key.append(describe(replacementProperty)).append('\n');
+    }
+    ReplacementPlan plan = SHARED_PLANS.get(key.toString());
+    if (plan == null) {
+      List<Step> steps = new ArrayList<>(replacementProperties.size());
+      for (ReplacementProperty replacementProperty : replacementProperties) {
+        steps.add(new Step(replacementProperty));
+      }
+      markDeadSteps(steps);
+      plan = new ReplacementPlan(steps);
+      if (SHARED_PLANS.size() >= MAX_SHARED_PLANS) {
+        SHARED_PLANS.clear();
+      }
+      SHARED_PLANS.put(key.toString(), plan);
+    }
+    return plan;
+  }
+
+  /**
+   * Walks the steps backwards and marks every step as dead whose output key is written again by a
+   * later step before it is read.
+   */
+  private static void markDeadSteps(@NonNull List<Step> steps) {
+    // the keys that a later step overwrites before anyone reads them
+    Set<String> overwritten = new HashSet<>();
+    for (int i = steps.size() - 1; i >= 0; i--) {
+      Step step = steps.get(i);
+      if (step.property == null) {
+        // reads (and may write) every property
+        overwritten.clear();
+      } else if (overwritten.contains(step.outputKey)) {
+        step.live = false;
+      } else {
+        overwritten.add(step.outputKey);
+        if (!step.forceValueEvaluation) {
+          overwritten.remove(step.property);
+        }
+      }
+    }
+  }
+
+  @NonNull
+  private static String describe(@NonNull ReplacementProperty replacementProperty) {
+    List<String> rules = new ArrayList<>();
+    if (replacementProperty.getTransformationRules() != null) {
+      for (TransformationRule rule : replacementProperty.getTransformationRules()) {
+        rules.add(rule.getApplyRule() + ":" + rule.getActionRule() + ":" + rule.getMaxLength());
+      }
+    }
+    // \u0000 can't be part of a pom.xml, hence it can't be part of any configured value
+    return String.join(
+        "\u0000",
+        String.valueOf(replacementProperty.getProperty()),
+        String.valueOf(replacementProperty.getPropertyOutputSuffix()),
+        String.valueOf(replacementProperty.getToken()),
+        String.valueOf(replacementProperty.getValue()),
+        String.valueOf(replacementProperty.isRegex()),
+        String.valueOf(replacementProperty.isForceValueEvaluation()),
+        String.join(",", rules));
+  }
+
+  /**
+   * Returns the compiled steps in the order they were configured.
+   *
+   * @return The compiled steps
+   */
+  @NonNull
+  List<Step> getSteps() {
+    return steps;
+  }
+
+  /** A single compiled {@link ReplacementProperty}. */
+  static final class Step {
+    private final String property;
+    private final String outputSuffix;
+    private final String outputKey;
+    private final String token;
+    private final Pattern pattern;
+    private final String value;
+    private final String replacement;
+    private final boolean forceValueEvaluation;
+    private final TransformationChain beforeRules;
+    private final TransformationChain afterRules;
+    private boolean live = true;
+
+    private Step(@NonNull ReplacementProperty replacementProperty) {
+      property = replacementProperty.getProperty();
+      String suffix = replacementProperty.getPropertyOutputSuffix();
+      outputSuffix = (suffix == null || suffix.isEmpty()) ? null : suffix;
+      outputKey = (property == null || outputSuffix == null) ? property : outputKeyOf(property);
+      token = replacementProperty.getToken();
+      pattern =
+          (replacementProperty.isRegex() && token != null) ? Pattern.compile(token) : null;
+      value = replacementProperty.getValue();
+      replacement = value == null ? "" : value;
+      forceValueEvaluation = replacementProperty.isForceValueEvaluation();
+      beforeRules = rulesFor(replacementProperty, TransformationRule.ApplyEnum.BEFORE);
+      afterRules = rulesFor(replacementProperty, TransformationRule.ApplyEnum.AFTER);
+    }
+
+    @NonNull
+    private static TransformationChain rulesFor(
+        @NonNull ReplacementProperty replacementProperty,
+        TransformationRule.@NonNull ApplyEnum applyRule) {
+      List<TransformationRule> rules = new ArrayList<>();
+      if (replacementProperty.getTransformationRules() != null) {
+        for (TransformationRule rule : replacementProperty.getTransformationRules()) {
+          if (rule.getApplyRule().equals(applyRule)) {
+            rules.add(rule);
+          }
+        }
+      }
+      return TransformationChain.of(rules);
+    }
+
+    /**
+     * Tells whether the result of this step is used at all. A dead step doesn't need to be
+     * evaluated, since a later step overwrites its output before anyone read it.
+     *
+     * @return {@code false} if the step can be skipped
+     */
+    boolean isLive() {
+      return live;
+    }
+
+    /**
+     * Returns the single property this step applies to.
+     *
+     * @return The key of the property, or {@code null} if the step applies to all properties
+     */
+    @Nullable
+    String getProperty() {
+      return property;
+    }
+
+    /**
+     * Returns the key the result of the single property of this step is written to.
+     *
+     * @return The output key, or {@code null} if the step applies to all properties
+     */
+    @Nullable
+    String getOutputKey() {
+      return outputKey;
+    }
+
+    /**
+     * Returns the key the result for the given property is written to.
+     *
+     * @param propertyKey The key of the property the step is applied to
+     * @return The output key
+     */
+    @NonNull
+    String outputKeyOf(@NonNull String propertyKey) {
+      return outputSuffix == null ? propertyKey : propertyKey + "." + outputSuffix;
+    }
+
+    /**
+     * Tells whether the result is written to a new key instead of replacing the property.
+     *
+     * @return {@code true} if a {@code propertyOutputSuffix} was configured
+     */
+    boolean hasOutputSuffix() {
+      return outputSuffix != null;
+    }
+
+    /**
+     * Returns the content that should be evaluated for the given current value of a property.
+     *
+     * @param content The current value of the property
+     * @return The content that should be evaluated
+     */
+    @Nullable
+    String evaluationContentOf(@Nullable String content) {
+      if (content == null || content.isEmpty() || forceValueEvaluation) {
+        return value;
+      }
+      return content;
+    }
+
+    /**
+     * Tells whether the token is missing, in which case the replacement itself is skipped.
+     *
+     * @return {@code true} if no token was configured
+     */
+    boolean isMissingToken() {
+      return token == null;
+    }
+
+    /**
+     * Applies the transformation rules and the replacement to the given (already evaluated)
+     * content.
+     *
+     * @param content The evaluated content
+     * @return The result of the step
+     */
+    String apply(String content) {
+      String result = beforeRules.apply(content);
+      if (token != null) {
+        result =
+            pattern != null
+                ? pattern.matcher(result).replaceAll(replacement)
+                : result.replace(token, replacement);
+      }
+      return afterRules.apply(result);
+    }
+  }
+}
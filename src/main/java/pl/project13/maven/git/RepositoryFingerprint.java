@@ -0,0 +1,290 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A cheap fingerprint of the state of a git repository that is computed with plain file system
+ * access, without opening the repository (and without loading a single JGit class). Two equal
+ * fingerprints mean that neither {@code HEAD}, nor any ref, nor the index, nor the config of the
+ * repository changed in between.
+ *
+ * <p>The fingerprint consists of:
+ *
+ * <ul>
+ *   <li>the content of {@code HEAD} and the commit it resolves to (read from the loose ref or
+ *       from the {@code packed-refs} entry it points to)
+ *   <li>the size and modification time of the index, the {@code packed-refs}, the config and every
+ *       loose ref
+ * </ul>
+ *
+ * <p>For a worktree (or a submodule) {@code HEAD} and the index are read from the git directory of
+ * the worktree, whereas all refs and the config are read from the common directory of the
+ * repository. Note that modifications of the working tree are not reflected by the fingerprint.
+ */
+final class RepositoryFingerprint {
+  private static final String SYMBOLIC_REF_PREFIX = "ref:";
+  private static final Pattern OBJECT_ID = Pattern.compile("[0-9a-f]{40}|[0-9a-f]{64}");
+
+  private final String head;
+  private final String fingerprint;
+
+  private RepositoryFingerprint(@NonNull String head, @NonNull String fingerprint) {
+    this.head = head;
+    this.fingerprint = fingerprint;
+  }
+
+  /**
+   * Computes the fingerprint of the given git directory.
+   *
+   * @param gitDir The git directory (e.g. {@code .git}) of the repository
+   * @return The fingerprint of the repository
+   * @throws IOException if the git directory could not be read
+   */
+  @NonNull
+  static RepositoryFingerprint of(@NonNull Path gitDir) throws IOException {
+    Path commonDir = resolveCommonDir(gitDir);
+    String head = readHead(gitDir, commonDir);
+
+    List<String> components = new ArrayList<>();
+    components.add(head);
+    components.add(stat(gitDir.resolve("index")));
+    components.add(stat(commonDir.resolve("packed-refs")));
+    components.add(stat(commonDir.resolve("config")));
+    Path refs = commonDir.resolve("refs");
+    if (Files.isDirectory(refs)) {
+      try (Stream<Path> paths = Files.walk(refs)) {
+        components.addAll(
+            paths
+                .filter(Files::isRegularFile)
+                .map(RepositoryFingerprint::statUnchecked)
+                .sorted()
+                .collect(Collectors.toList()));
+      }
+    }
+    return new RepositoryFingerprint(head, String.join("\n", components));
+  }
+
+  /**
+   * Returns the content of {@code HEAD} and the commit it resolves to, which changes with every
+   * commit, checkout or reset.
+   *
+   * @return The state of {@code HEAD}
+   */
+  @NonNull
+  String getHead() {
+    return head;
+  }
+
+  /**
+   * Reads the content of {@code HEAD} and the commit it resolves to, without computing the whole
+   * fingerprint.
+   *
+   * @param gitDir The git directory (e.g. {@code .git}) of the repository
+   * @return The state of {@code HEAD}
+   * @throws IOException if {@code HEAD} could not be read
+   */
+  @NonNull
+  static String readHead(@NonNull Path gitDir) throws IOException {
+    return readHead(gitDir, resolveCommonDir(gitDir));
+  }
+
+  /**
+   * Resolves {@code HEAD} to the id of the commit it points to.
+   *
+   * @param gitDir The git directory (e.g. {@code .git}) of the repository
+   * @return The id of the commit, or {@code null} if {@code HEAD} can't be resolved (e.g. for a
+   *     repository without any commit)
+   * @throws IOException if {@code HEAD} could not be read
+   */
+  @Nullable
+  static String resolveHeadCommit(@NonNull Path gitDir) throws IOException {
+    Path commonDir = resolveCommonDir(gitDir);
+    String head = readIfExists(gitDir.resolve("HEAD"));
+    if (head == null || !head.startsWith(SYMBOLIC_REF_PREFIX)) {
+      return head;
+    }
+    String ref = head.substring(SYMBOLIC_REF_PREFIX.length()).trim();
+    String commit = readIfExists(commonDir.resolve(ref));
+    if (commit == null) {
+      commit = readPackedRef(commonDir.resolve("packed-refs"), ref);
+    }
+    return (commit == null || commit.startsWith(SYMBOLIC_REF_PREFIX)) ? null : commit;
+  }
+
+  /**
+   * Resolves the commit the git data is generated for to its full id.
+   *
+   * @param gitDir The git directory (e.g. {@code .git}) of the repository
+   * @param evaluateOnCommit Either {@code HEAD} or the full id of a commit
+   * @return The full id of the commit, or {@code null} if the commit can't be resolved without
+   *     opening the repository (e.g. for a branch name or an abbreviated id)
+   * @throws IOException if {@code HEAD} could not be read
+   */
+  @Nullable
+  static String resolveCommit(@NonNull Path gitDir, @Nullable String evaluateOnCommit)
+      throws IOException {
+    String commit =
+        (evaluateOnCommit == null || "HEAD".equals(evaluateOnCommit))
+            ? resolveHeadCommit(gitDir)
+            : evaluateOnCommit.toLowerCase(Locale.ROOT);
+    return (commit == null || !OBJECT_ID.matcher(commit).matches()) ? null : commit;
+  }
+
+  /**
+   * Tells whether the history of the repository is altered by grafts, replace refs or a shallow
+   * clone, in which case the parents recorded in the commit objects are not the whole truth.
+   *
+   * @param commonDir The common directory of the repository (see {@link #resolveCommonDir})
+   * @return {@code true} if the history is altered
+   * @throws IOException if the refs could not be read
+   */
+  static boolean isHistoryRewritten(@NonNull Path commonDir) throws IOException {
+    if (Files.exists(commonDir.resolve("shallow"))
+        || Files.exists(commonDir.resolve("info").resolve("grafts"))) {
+      return true;
+    }
+    Path replaceRefs = commonDir.resolve("refs").resolve("replace");
+    if (Files.isDirectory(replaceRefs)) {
+      try (Stream<Path> paths = Files.walk(replaceRefs)) {
+        if (paths.anyMatch(Files::isRegularFile)) {
+          return true;
+        }
+      }
+    }
+    Path packedRefs = commonDir.resolve("packed-refs");
+    if (Files.isRegularFile(packedRefs)) {
+      try (Stream<String> lines = Files.lines(packedRefs, StandardCharsets.UTF_8)) {
+        return lines.anyMatch(line -> line.contains(" refs/replace/"));
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the directory that holds the refs and the config of the repository, which differs
+   * from the git directory for a worktree.
+   *
+   * @param gitDir The git directory (e.g. {@code .git}) of the repository
+   * @return The common directory of the repository
+   */
+  @NonNull
+  static Path resolveCommonDir(@NonNull Path gitDir) {
+    try {
+      String commonDir = readIfExists(gitDir.resolve("commondir"));
+      return commonDir == null ? gitDir : gitDir.resolve(commonDir).normalize();
+    } catch (IOException e) {
+      return gitDir;
+    }
+  }
+
+  @NonNull
+  private static String readHead(@NonNull Path gitDir, @NonNull Path commonDir)
+      throws IOException {
+    String head = readIfExists(gitDir.resolve("HEAD"));
+    if (head == null || !head.startsWith(SYMBOLIC_REF_PREFIX)) {
+      return "HEAD=" + head;
+    }
+    String ref = head.substring(SYMBOLIC_REF_PREFIX.length()).trim();
+    String commit = readIfExists(commonDir.resolve(ref));
+    if (commit == null) {
+      commit = readPackedRef(commonDir.resolve("packed-refs"), ref);
+    }
+    return "HEAD=" + head + "\n" + ref + "=" + commit;
+  }
+
+  /** Looks up the given ref in the {@code packed-refs} (lines in the form {@code <id> <ref>}). */
+  @Nullable
+  private static String readPackedRef(@NonNull Path packedRefs, @NonNull String ref)
+      throws IOException {
+    if (!Files.isRegularFile(packedRefs)) {
+      return null;
+    }
+    String suffix = " " + ref;
+    try (BufferedReader reader = Files.newBufferedReader(packedRefs, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.endsWith(suffix) && line.length() > suffix.length()) {
+          return line.substring(0, line.length() - suffix.length());
+        }
+      }
+    }
+    return null;
+  }
+
+  @Nullable
+  private static String readIfExists(@NonNull Path file) throws IOException {
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    return new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+  }
+
+  @NonNull
+  private static String stat(@NonNull Path file) throws IOException {
+    if (!Files.exists(file)) {
+      return file.getFileName() + ":missing";
+    }
+    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    return file + ":" + attributes.size() + ":" + attributes.lastModifiedTime().toMillis();
+  }
+
+  @NonNull
+  private static String statUnchecked(@NonNull Path file) {
+    try {
+      return stat(file);
+    } catch (IOException e) {
+      // the ref vanished while walking the refs, just make sure the fingerprint changes
+      return file + ":unreadable";
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    return o instanceof RepositoryFingerprint
+        && fingerprint.equals(((RepositoryFingerprint) o).fingerprint);
+  }
+
+  @Override
+  public int hashCode() {
+    return fingerprint.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return fingerprint;
+  }
+}
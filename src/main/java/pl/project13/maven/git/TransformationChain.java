@@ -0,0 +1,207 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A chain of {@link TransformationRule transformationRules} that is applied to a value at once.
+ *
+ * <p>Instead of creating a new string for every rule, consecutive character level actions (case
+ * mapping and removing characters) are fused into a single pass over a working copy of the value,
+ * whereas {@code TRIM} and {@code TRUNCATE} only move the bounds of that copy. The result is
+ * allocated once at the very end.
+ *
+ * <p>Case mapping is only fused for ASCII values in a locale without special casing rules,
+ * otherwise the rules are applied one by one (exactly like {@link String#toLowerCase()} and
+ * {@link String#toUpperCase()} would do).
+ */
+final class TransformationChain {
+  /** A chain without any rule, which returns every value as is. */
+  static final TransformationChain EMPTY =
+      new TransformationChain(new TransformationRule.ActionEnum[0], new Integer[0]);
+
+  /** The languages whose case mapping differs from the plain ASCII one, even for ASCII values. */
+  private static final List<String> SPECIAL_CASING_LANGUAGES = Arrays.asList("tr", "az", "lt");
+
+  private final TransformationRule.ActionEnum[] actions;
+  private final Integer[] maxLengths;
+  private final boolean hasCaseMapping;
+
+  private TransformationChain(TransformationRule.ActionEnum[] actions, Integer[] maxLengths) {
+    this.actions = actions;
+    this.maxLengths = maxLengths;
+    boolean caseMapping = false;
+    for (TransformationRule.ActionEnum action : actions) {
+      caseMapping |= isCaseMapping(action);
+    }
+    this.hasCaseMapping = caseMapping;
+  }
+
+  /**
+   * Creates the chain of the given rules, which are applied in the given order.
+   *
+   * @param rules The rules to chain
+   * @return The chain of the given rules
+   * @throws IllegalStateException if a rule is invalid (e.g. {@code TRUNCATE} without a valid
+   *     {@code maxLength})
+   */
+  @NonNull
+  static TransformationChain of(@NonNull List<TransformationRule> rules) {
+    if (rules.isEmpty()) {
+      return EMPTY;
+    }
+    TransformationRule.ActionEnum[] actions = new TransformationRule.ActionEnum[rules.size()];
+    Integer[] maxLengths = new Integer[rules.size()];
+    for (int i = 0; i < actions.length; i++) {
+      actions[i] = rules.get(i).getActionRule();
+      maxLengths[i] = rules.get(i).getMaxLength();
+      if (actions[i] == TransformationRule.ActionEnum.TRUNCATE
+          && (maxLengths[i] == null || maxLengths[i] < 0)) {
+        throw new IllegalStateException(
+            "The parameter 'maxLength' for the TransformationRule TRUNCATE is missing or invalid");
+      }
+    }
+    return new TransformationChain(actions, maxLengths);
+  }
+
+  /**
+   * Applies all rules of the chain to the given value.
+   *
+   * @param input The value to transform
+   * @return The transformed value
+   */
+  @Nullable
+  String apply(@Nullable String input) {
+    if (input == null || actions.length == 0) {
+      return input;
+    }
+    if (hasCaseMapping && !canMapCaseAscii(input)) {
+      return applySequentially(input);
+    }
+
+    // the bounds of the current value inside either the input or the working copy
+    char[] buffer = null;
+    int start = 0;
+    int end = input.length();
+    int i = 0;
+    while (i < actions.length) {
+      TransformationRule.ActionEnum action = actions[i];
+      if (action == TransformationRule.ActionEnum.TRIM) {
+        while (start < end && charAt(input, buffer, start) <= ' ') {
+          start++;
+        }
+        while (end > start && charAt(input, buffer, end - 1) <= ' ') {
+          end--;
+        }
+        i++;
+      } else if (action == TransformationRule.ActionEnum.TRUNCATE) {
+        if (end - start > maxLengths[i]) {
+          end = start + maxLengths[i];
+          if (end > start && Character.isHighSurrogate(charAt(input, buffer, end - 1))) {
+            // don't cut a character in half
+            end--;
+          }
+        }
+        i++;
+      } else {
+        // fuse all consecutive character level actions into one pass
+        int last = i;
+        while (last + 1 < actions.length && isCharacterLevel(actions[last + 1])) {
+          last++;
+        }
+        if (buffer == null) {
+          buffer = new char[end - start];
+          input.getChars(start, end, buffer, 0);
+          end -= start;
+          start = 0;
+        }
+        int write = start;
+        for (int read = start; read < end; read++) {
+          int c = buffer[read];
+          for (int a = i; a <= last && c >= 0; a++) {
+            c = mapCharacter(actions[a], (char) c);
+          }
+          if (c >= 0) {
+            buffer[write++] = (char) c;
+          }
+        }
+        end = write;
+        i = last + 1;
+      }
+    }
+    return buffer == null ? input.substring(start, end) : new String(buffer, start, end - start);
+  }
+
+  @NonNull
+  private String applySequentially(@NonNull String input) {
+    String result = input;
+    for (int i = 0; i < actions.length; i++) {
+      result = actions[i].perform(result, maxLengths[i]);
+    }
+    return result;
+  }
+
+  private static char charAt(@NonNull String input, char[] buffer, int index) {
+    return buffer == null ? input.charAt(index) : buffer[index];
+  }
+
+  private static boolean isCaseMapping(TransformationRule.@NonNull ActionEnum action) {
+    return action == TransformationRule.ActionEnum.LOWER_CASE
+        || action == TransformationRule.ActionEnum.UPPER_CASE;
+  }
+
+  private static boolean isCharacterLevel(TransformationRule.@NonNull ActionEnum action) {
+    return isCaseMapping(action)
+        || action == TransformationRule.ActionEnum.REMOVE_WHITESPACE
+        || action == TransformationRule.ActionEnum.REMOVE_SPECIAL_CHARACTERS;
+  }
+
+  /** Maps the given character, returns a negative value if the character should be removed. */
+  private static int mapCharacter(TransformationRule.@NonNull ActionEnum action, char c) {
+    switch (action) {
+      case LOWER_CASE:
+        return (c >= 'A' && c <= 'Z') ? c + ('a' - 'A') : c;
+      case UPPER_CASE:
+        return (c >= 'a' && c <= 'z') ? c - ('a' - 'A') : c;
+      case REMOVE_WHITESPACE:
+        return Character.isWhitespace(c) ? -1 : c;
+      case REMOVE_SPECIAL_CHARACTERS:
+        return TransformationRule.ActionEnum.isPlainCharacter(c) ? c : -1;
+      default:
+        throw new IllegalArgumentException("Not a character level action: " + action);
+    }
+  }
+
+  private static boolean canMapCaseAscii(@NonNull String input) {
+    if (SPECIAL_CASING_LANGUAGES.contains(Locale.getDefault().getLanguage())) {
+      return false;
+    }
+    for (int i = 0; i < input.length(); i++) {
+      if (input.charAt(i) >= 0x80) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -60,13 +60,20 @@ public class TransformationRule {
 
   /**
    * Determines the action that should be performed as transformation. Currently supported is -
-   * LOWER_CASE - UPPER_CASE
+   * LOWER_CASE - UPPER_CASE - TRIM - REMOVE_WHITESPACE - REMOVE_SPECIAL_CHARACTERS - TRUNCATE
    */
   @Parameter(required = true)
   private String action;
 
   private ActionEnum actionRule;
 
+  /**
+   * The maximum length of the value, required by (and only used for) the {@code TRUNCATE} action.
+   *
+   * @since 10.1.0
+   */
+  @Parameter private Integer maxLength;
+
   /**
    * Each {@code transformationRule} consist of two required fields {@code apply} and {@code
    * action}.
@@ -91,9 +98,102 @@ public class TransformationRule {
         return null;
       }
     },
+    /** removes all leading and trailing whitespace (as {@link String#trim()} does). */
+    TRIM {
+      @Override
+      protected String perform(String input) {
+        if (input != null) {
+          return input.trim();
+        }
+        return null;
+      }
+    },
+    /** removes all whitespace characters. */
+    REMOVE_WHITESPACE {
+      @Override
+      protected String perform(String input) {
+        return removeIf(input, Character::isWhitespace);
+      }
+    },
+    /**
+     * removes all characters except ASCII letters, digits, {@code -}, {@code _} and {@code .},
+     * e.g. to derive a file or docker tag name from a branch name.
+     */
+    REMOVE_SPECIAL_CHARACTERS {
+      @Override
+      protected String perform(String input) {
+        return removeIf(input, c -> !isPlainCharacter(c));
+      }
+    },
+    /**
+     * cuts the value after {@code maxLength} characters, see {@link #perform(String, Integer)}.
+     */
+    TRUNCATE {
+      @Override
+      protected String perform(String input) {
+        throw new IllegalStateException("The action TRUNCATE requires a maxLength");
+      }
+
+      @Override
+      protected String perform(String input, Integer maxLength) {
+        if (maxLength == null) {
+          return perform(input);
+        }
+        if (input == null || input.length() <= maxLength) {
+          return input;
+        }
+        int end = maxLength;
+        if (end > 0 && Character.isHighSurrogate(input.charAt(end - 1))) {
+          // don't cut a character in half
+          end--;
+        }
+        return input.substring(0, end);
+      }
+    },
     ;
 
     protected abstract String perform(String input);
+
+    /**
+     * Performs the action with the {@code maxLength} of its rule, which is only used by {@link
+     * #TRUNCATE}.
+     *
+     * @param input The value to transform
+     * @param maxLength The {@code maxLength} of the rule
+     * @return The transformed value
+     */
+    protected String perform(String input, Integer maxLength) {
+      return perform(input);
+    }
+
+    /** Tells whether the character is kept by {@link #REMOVE_SPECIAL_CHARACTERS}. */
+    static boolean isPlainCharacter(char c) {
+      return (c >= 'a' && c <= 'z')
+          || (c >= 'A' && c <= 'Z')
+          || (c >= '0' && c <= '9')
+          || c == '-'
+          || c == '_'
+          || c == '.';
+    }
+
+    private static String removeIf(String input, CharPredicate predicate) {
+      if (input == null) {
+        return null;
+      }
+      StringBuilder result = new StringBuilder(input.length());
+      for (int i = 0; i < input.length(); i++) {
+        char c = input.charAt(i);
+        if (!predicate.test(c)) {
+          result.append(c);
+        }
+      }
+      return result.toString();
+    }
+
+    @FunctionalInterface
+    private interface CharPredicate {
+      boolean test(char c);
+    }
   }
 
   public TransformationRule() {}
@@ -142,4 +242,12 @@ public class TransformationRule {
     }
     return actionRule;
   }
+
+  public Integer getMaxLength() {
+    return maxLength;
+  }
+
+  public void setMaxLength(Integer maxLength) {
+    this.maxLength = maxLength;
+  }
 }
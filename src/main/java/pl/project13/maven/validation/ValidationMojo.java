@@ -18,9 +18,14 @@
 
 package pl.project13.maven.validation;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
@@ -57,6 +62,11 @@ import org.apache.maven.plugins.annotations.Parameter;
  */
 @Mojo(name = "validateRevision", defaultPhase = LifecyclePhase.VERIFY, threadSafe = true)
 public class ValidationMojo extends AbstractMojo {
+  /** The number of distinct patterns that are kept before the cached patterns are dropped. */
+  private static final int MAX_CACHED_PATTERNS = 256;
+
+  private static final Map<String, Pattern> PATTERNS = new ConcurrentHashMap<>();
+
   @Parameter(defaultValue = "true")
   private boolean validationShouldFailIfNoMatch;
 
@@ -65,33 +75,79 @@ public class ValidationMojo extends AbstractMojo {
   @Override
   public void execute() throws MojoExecutionException {
     if (validationProperties != null && validationShouldFailIfNoMatch) {
+      // evaluate all validations, so that a single build reports every failure
+      List<String> failures = new ArrayList<>();
       for (ValidationProperty validationProperty : validationProperties) {
         String name = validationProperty.getName();
         String value = validationProperty.getValue();
         String shouldMatchTo = validationProperty.getShouldMatchTo();
         if ((value != null) && (shouldMatchTo != null)) {
-          validateIfValueAndShouldMatchToMatches(name, value, shouldMatchTo);
+          long start = System.nanoTime();
+          String failure = validateIfValueAndShouldMatchToMatches(name, value, shouldMatchTo);
+          if (getLog().isDebugEnabled()) {
+            getLog()
+                .debug(
+                    String.format(
+                        Locale.ROOT,
+                        "Validation '%s' took %.3f ms",
+                        name,
+                        (System.nanoTime() - start) / 1e6));
+          }
+          if (failure != null) {
+            failures.add(failure);
+          }
         } else {
           printLogMessageWhenValueOrShouldMatchToIsEmpty(name, value, shouldMatchTo);
         }
       }
+      if (failures.size() == 1) {
+        throw new MojoExecutionException(failures.get(0));
+      } else if (!failures.isEmpty()) {
+        throw new MojoExecutionException(
+            failures.size() + " validations failed!\n - " + String.join("\n - ", failures));
+      }
     }
   }
 
-  private void validateIfValueAndShouldMatchToMatches(
-      String name, String value, String shouldMatchTo) throws MojoExecutionException {
-    Pattern pattern = Pattern.compile(shouldMatchTo);
-    Matcher matcher = pattern.matcher(value);
-    if (!matcher.find()) {
-      String commonLogMessage = "Expected '" + value + "' to match with '" + shouldMatchTo + "'!";
-      if (name != null) {
-        throw new MojoExecutionException("Validation '" + name + "' failed! " + commonLogMessage);
-      } else {
-        throw new MojoExecutionException(
-            "Validation of an unidentified validation (please set the name property-tag to be able"
-                + " to identify the validation) failed! "
-                + commonLogMessage);
+  /**
+   * Returns the compiled pattern, patterns are shared across all modules of a reactor (and all
+   * builds in the same JVM) since the same validations are usually inherited by all modules.
+   */
+  private static Pattern compile(String shouldMatchTo) {
+    Pattern pattern = PATTERNS.get(shouldMatchTo);
+    if (pattern == null) {
+      pattern = Pattern.compile(shouldMatchTo);
+      if (PATTERNS.size() >= MAX_CACHED_PATTERNS) {
+        PATTERNS.clear();
       }
+      PATTERNS.put(shouldMatchTo, pattern);
+    }
+    return pattern;
+  }
+
+  /**
+   * Validates that the value matches.
+   *
+   * @return The message that describes the failed validation, or {@code null} if it matches
+   */
+  private String validateIfValueAndShouldMatchToMatches(
+      String name, String value, String shouldMatchTo) {
+    String commonLogMessage;
+    try {
+      Matcher matcher = compile(shouldMatchTo).matcher(value);
+      if (matcher.find()) {
+        return null;
+      }
+      commonLogMessage = "Expected '" + value + "' to match with '" + shouldMatchTo + "'!";
+    } catch (PatternSyntaxException e) {
+      commonLogMessage = "The pattern '" + shouldMatchTo + "' is invalid: " + e.getDescription();
+    }
+    if (name != null) {
+      return "Validation '" + name + "' failed! " + commonLogMessage;
+    } else {
+      return "Validation of an unidentified validation (please set the name property-tag to be able"
+          + " to identify the validation) failed! "
+          + commonLogMessage;
     }
   }
 
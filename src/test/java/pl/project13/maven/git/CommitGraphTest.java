@@ -0,0 +1,192 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.RevWalkUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.project13.log.DummyTestLoggerBridge;
+
+/**
+ * Testcases to verify that the {@link CommitGraph} works properly.
+ */
+public class CommitGraphTest {
+  @TempDir
+  public Path repository;
+
+  private Git git;
+  private Path gitDir;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    git = Git.init().setDirectory(repository.toFile()).setInitialBranch("master").call();
+    gitDir = repository.resolve(".git");
+    StoredConfig config = git.getRepository().getConfig();
+    config.setBoolean("core", null, "commitGraph", true);
+    config.setBoolean("gc", null, "writeCommitGraph", true);
+    config.save();
+
+    ObjectId base = commit("initial");
+    git.branchCreate().setName("feature").call();
+    ObjectId master = commit("master");
+    git.checkout().setName("feature").call();
+    ObjectId feature = commit("feature");
+    git.checkout().setName("master").call();
+    git.merge().include(feature).setMessage("merge").call();
+    octopusMerge(base, master, feature);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    git.close();
+  }
+
+  @Test
+  public void shouldCountCommitsLikeRevWalk() throws Exception {
+    git.gc().call();
+
+    String head = git.getRepository().resolve("HEAD").name();
+    assertThat(CommitGraph.read(gitDir.resolve("objects")).findPosition(head)).isNotNegative();
+    assertThat(countCommits()).isEqualTo(countWithRevWalk()).isEqualTo("5");
+  }
+
+  @Test
+  public void shouldReadCommitsNewerThanTheCommitGraphFromLooseObjects() throws Exception {
+    git.gc().call();
+    commit("after gc");
+    commit("another one");
+
+    assertThat(countCommits()).isEqualTo(countWithRevWalk()).isEqualTo("7");
+  }
+
+  @Test
+  public void shouldCountCommitsLikeGitAcrossSplitChainAndLooseCommits() throws Exception {
+    git("commit-graph", "write", "--reachable", "--split=no-merge");
+    commit("second layer");
+    git("checkout", "-q", "-b", "topic", "HEAD~1");
+    commit("topic");
+    git("checkout", "-q", "master");
+    git("merge", "-q", "--no-edit", "topic");
+    git("commit-graph", "write", "--reachable", "--split=no-merge");
+    // newer than the commit-graph, thus loose objects
+    commit("after the commit-graph");
+    commit("and another one");
+
+    assertThat(
+            Files.readAllLines(
+                gitDir.resolve("objects/info/commit-graphs/commit-graph-chain"),
+                StandardCharsets.UTF_8))
+        .hasSize(2);
+    assertThat(countCommits()).isEqualTo(git("rev-list", "--count", "HEAD"));
+  }
+
+  @Test
+  public void shouldNotCountWithoutCommitGraph() throws Exception {
+    assertThat(countCommits()).isNull();
+  }
+
+  @Test
+  public void shouldNotCountShallowHistory() throws Exception {
+    git.gc().call();
+    Files.write(
+        gitDir.resolve("shallow"),
+        (git.getRepository().resolve("HEAD").name() + "\n").getBytes(StandardCharsets.UTF_8));
+
+    assertThat(countCommits()).isNull();
+  }
+
+  private String countCommits() {
+    return CommitGraph.countCommits(gitDir, "HEAD", new DummyTestLoggerBridge());
+  }
+
+  private String countWithRevWalk() throws Exception {
+    try (RevWalk walk = new RevWalk(git.getRepository())) {
+      RevCommit head = walk.parseCommit(git.getRepository().resolve("HEAD"));
+      return String.valueOf(RevWalkUtils.count(walk, head, null));
+    }
+  }
+
+  private String git(String... arguments) throws Exception {
+    List<String> command = new ArrayList<>();
+    command.addAll(
+        Arrays.asList(
+            "git", "-c", "user.name=test", "-c", "user.email=test@example.com", "-c", "gc.auto=0"));
+    command.addAll(Arrays.asList(arguments));
+    Process process =
+        new ProcessBuilder(command)
+            .directory(repository.toFile())
+            .redirectErrorStream(true)
+            .start();
+    String output;
+    try (InputStream in = process.getInputStream()) {
+      output = new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+    }
+    assertThat(process.waitFor()).as(String.join(" ", command) + ": " + output).isZero();
+    return output;
+  }
+
+  private void octopusMerge(ObjectId... parents) throws Exception {
+    try (ObjectInserter inserter = git.getRepository().newObjectInserter()) {
+      RevCommit head = git.getRepository().parseCommit(git.getRepository().resolve("HEAD"));
+      PersonIdent ident = new PersonIdent("test", "test@example.com");
+      CommitBuilder builder = new CommitBuilder();
+      builder.setTreeId(head.getTree());
+      builder.setParentIds(head);
+      for (ObjectId parent : parents) {
+        builder.addParentId(parent);
+      }
+      builder.setAuthor(ident);
+      builder.setCommitter(ident);
+      builder.setMessage("octopus");
+      ObjectId octopus = inserter.insert(builder);
+      inserter.flush();
+      RefUpdate update = git.getRepository().updateRef("HEAD");
+      update.setNewObjectId(octopus);
+      update.forceUpdate();
+    }
+  }
+
+  private ObjectId commit(String message) throws Exception {
+    // a file per commit, so that merging never conflicts
+    String file = message.replace(' ', '-') + ".txt";
+    Files.write(repository.resolve(file), message.getBytes(StandardCharsets.UTF_8));
+    git.add().addFilepattern(file).call();
+    return git.commit().setMessage(message).call().getId();
+  }
+}
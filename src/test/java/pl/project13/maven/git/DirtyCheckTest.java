@@ -0,0 +1,225 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.project13.core.log.LogInterface;
+
+/**
+ * Testcases to verify that the {@link DirtyCheck} works properly.
+ */
+public class DirtyCheckTest {
+  @TempDir
+  public Path repository;
+
+  private Git git;
+  private File gitDir;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    git = Git.init().setDirectory(repository.toFile()).setInitialBranch("master").call();
+    gitDir = repository.resolve(".git").toFile();
+    write("module/tracked.txt", "initial");
+    write("other/tracked.txt", "initial");
+    git.add().addFilepattern(".").call();
+    git.commit().setMessage("initial").setSign(false).call();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    git.close();
+  }
+
+  @Test
+  public void shouldIgnoreUntrackedFiles() throws Exception {
+    write("untracked/generated.txt", "generated");
+
+    assertThat(isDirty(DirtyCheck.Mode.TRACKED_ONLY)).isFalse();
+    assertThat(isDirty(DirtyCheck.Mode.INDEX_ONLY)).isFalse();
+  }
+
+  @Test
+  public void shouldOnlyConsiderUntrackedFilesWithNativeGitInFullMode() throws Exception {
+    assertThat(isDirty(DirtyCheck.Mode.FULL)).isFalse();
+    assertThat(isDirtyNative(DirtyCheck.Mode.FULL)).isFalse();
+
+    write("untracked/generated.txt", "generated");
+
+    // just like the full check of the core JGit ignores untracked files, native git doesn't
+    assertThat(isDirty(DirtyCheck.Mode.FULL)).isFalse();
+    assertThat(isDirtyNative(DirtyCheck.Mode.FULL)).isTrue();
+  }
+
+  @Test
+  public void shouldConsiderMissingAndRemovedFiles() throws Exception {
+    Files.delete(repository.resolve("module/tracked.txt"));
+
+    assertThat(isDirty(DirtyCheck.Mode.FULL)).isTrue();
+    assertThat(isDirty(DirtyCheck.Mode.INDEX_ONLY)).isFalse();
+
+    git.rm().addFilepattern("module/tracked.txt").call();
+
+    assertThat(isDirty(DirtyCheck.Mode.FULL)).isTrue();
+    assertThat(isDirty(DirtyCheck.Mode.INDEX_ONLY)).isTrue();
+  }
+
+  @Test
+  public void shouldOnlyConsiderUnstagedModificationsWhenTrackingAllFiles() throws Exception {
+    write("module/tracked.txt", "modified");
+
+    assertThat(isDirty(DirtyCheck.Mode.TRACKED_ONLY)).isTrue();
+    assertThat(isDirty(DirtyCheck.Mode.INDEX_ONLY)).isFalse();
+  }
+
+  @Test
+  public void shouldConsiderStagedModifications() throws Exception {
+    write("module/added.txt", "added");
+    git.add().addFilepattern("module/added.txt").call();
+
+    assertThat(isDirty(DirtyCheck.Mode.TRACKED_ONLY)).isTrue();
+    assertThat(isDirty(DirtyCheck.Mode.INDEX_ONLY)).isTrue();
+  }
+
+  @Test
+  public void shouldOnlyConsiderModificationsOfTheModuleWithPerModuleVersions() throws Exception {
+    write("other/tracked.txt", "modified");
+    git.add().addFilepattern("other/tracked.txt").call();
+    File module = repository.resolve("module").toFile();
+
+    for (boolean parallel : new boolean[] {false, true}) {
+      assertThat(
+              DirtyCheck.isDirtyJGit(gitDir, module, true, DirtyCheck.Mode.TRACKED_ONLY, parallel))
+          .isFalse();
+      assertThat(DirtyCheck.isDirtyJGit(gitDir, module, true, DirtyCheck.Mode.INDEX_ONLY, parallel))
+          .isFalse();
+      assertThat(
+              DirtyCheck.isDirtyJGit(gitDir, module, false, DirtyCheck.Mode.INDEX_ONLY, parallel))
+          .isTrue();
+    }
+  }
+
+  @Test
+  public void shouldFindModificationsInLargeWorkingTreeInParallel() throws Exception {
+    for (int directory = 0; directory < 20; directory++) {
+      for (int file = 0; file < 2 * ParallelDirtyCheck.PARTITION_SIZE / 20 + 1; file++) {
+        write("large/dir" + directory + "/file" + file + ".txt", "content " + file);
+      }
+    }
+    write("large/dir19/sub/nested.txt", "nested");
+    git.add().addFilepattern(".").call();
+    git.commit().setMessage("large").setSign(false).call();
+    assertThat(isDirty(DirtyCheck.Mode.TRACKED_ONLY)).isFalse();
+
+    // same size, only the content differs
+    write("large/dir7/file3.txt", "CONTENT 3");
+    assertThat(isDirty(DirtyCheck.Mode.TRACKED_ONLY)).isTrue();
+
+    write("large/dir7/file3.txt", "content 3");
+    Files.delete(repository.resolve("large/dir19/sub/nested.txt"));
+    assertThat(isDirty(DirtyCheck.Mode.TRACKED_ONLY)).isTrue();
+  }
+
+  @Test
+  public void shouldRunNativeGitAgainstTheGitDirectory(@TempDir Path other) throws Exception {
+    write("module/tracked.txt", "modified");
+    // a project outside of any repository
+    assertThat(isDirtyNative(other, DirtyCheck.Mode.TRACKED_ONLY)).isTrue();
+
+    // a project inside of another (clean) repository
+    Git.init().setDirectory(other.toFile()).call().close();
+    assertThat(isDirtyNative(other, DirtyCheck.Mode.TRACKED_ONLY)).isTrue();
+    assertThat(isDirtyNative(other, DirtyCheck.Mode.INDEX_ONLY)).isFalse();
+  }
+
+  @Test
+  public void shouldConsiderIndexOfUnbornBranchAsStaged(@TempDir Path unborn) throws Exception {
+    DirtyCheck.Mode[] modes = {DirtyCheck.Mode.TRACKED_ONLY, DirtyCheck.Mode.INDEX_ONLY};
+    try (Git unbornGit = Git.init().setDirectory(unborn.toFile()).call()) {
+      File unbornGitDir = unborn.resolve(".git").toFile();
+      for (DirtyCheck.Mode mode : modes) {
+        assertThat(DirtyCheck.isDirtyNative(unbornGitDir, unborn.toFile(), false, 30_000, mode))
+            .isFalse();
+      }
+
+      Files.write(unborn.resolve("added.txt"), "added".getBytes(StandardCharsets.UTF_8));
+      unbornGit.add().addFilepattern("added.txt").call();
+      for (DirtyCheck.Mode mode : modes) {
+        assertThat(DirtyCheck.isDirtyNative(unbornGitDir, unborn.toFile(), false, 30_000, mode))
+            .isTrue();
+        assertThat(DirtyCheck.isDirtyJGit(unbornGitDir, unborn.toFile(), false, mode, false))
+            .isTrue();
+      }
+    }
+  }
+
+  @Test
+  public void shouldLeaveFullCheckToTheCoreUnlessParallel() {
+    GitCommitIdPluginRunner.GitDataLoader core = GitCommitIdPluginRunner.DEFAULT_GIT_DATA_LOADER;
+    LogInterface log = mock(LogInterface.class);
+
+    assertThat(DirtyCheck.wrap(core, DirtyCheck.Mode.FULL, false, log)).isSameAs(core);
+    assertThat(DirtyCheck.wrap(core, DirtyCheck.Mode.DISABLED, true, log)).isSameAs(core);
+    assertThat(DirtyCheck.wrap(core, DirtyCheck.Mode.FULL, true, log)).isNotSameAs(core);
+    assertThat(DirtyCheck.wrap(core, DirtyCheck.Mode.TRACKED_ONLY, false, log)).isNotSameAs(core);
+  }
+
+  @Test
+  public void shouldParseConfiguredMode() {
+    assertThat(DirtyCheck.Mode.parse("tracked-only")).isEqualTo(DirtyCheck.Mode.TRACKED_ONLY);
+    assertThat(DirtyCheck.Mode.parse(" Index-Only ")).isEqualTo(DirtyCheck.Mode.INDEX_ONLY);
+    assertThat(DirtyCheck.Mode.parse("disabled")).isEqualTo(DirtyCheck.Mode.DISABLED);
+  }
+
+  private boolean isDirty(DirtyCheck.Mode mode) throws Exception {
+    boolean dirty = DirtyCheck.isDirtyJGit(gitDir, repository.toFile(), false, mode, false);
+    // the parallel check must always come to the same conclusion
+    assertThat(DirtyCheck.isDirtyJGit(gitDir, repository.toFile(), false, mode, true))
+        .isEqualTo(dirty);
+    if (mode != DirtyCheck.Mode.FULL) {
+      // and so must native git (unless untracked files are considered)
+      assertThat(isDirtyNative(mode)).isEqualTo(dirty);
+    }
+    return dirty;
+  }
+
+  private boolean isDirtyNative(DirtyCheck.Mode mode) throws Exception {
+    return isDirtyNative(repository, mode);
+  }
+
+  private boolean isDirtyNative(Path projectBaseDir, DirtyCheck.Mode mode) throws Exception {
+    return DirtyCheck.isDirtyNative(gitDir, projectBaseDir.toFile(), false, 30_000, mode);
+  }
+
+  private void write(String file, String content) throws Exception {
+    Path path = repository.resolve(file);
+    Files.createDirectories(path.getParent());
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+  }
+}
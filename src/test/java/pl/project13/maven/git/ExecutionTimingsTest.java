@@ -0,0 +1,137 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static pl.project13.maven.git.GitDataLoaderTestSupport.commit;
+import static pl.project13.maven.git.GitDataLoaderTestSupport.initRepository;
+import static pl.project13.maven.git.GitDataLoaderTestSupport.mockCallback;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.project13.core.GitCommitIdExecutionException;
+import pl.project13.core.GitCommitIdPlugin;
+import pl.project13.maven.git.GitCommitIdPluginRunner.GitDataLoader;
+
+/**
+ * Testcases to verify that the {@link ExecutionTimings} works properly.
+ */
+public class ExecutionTimingsTest {
+  @TempDir
+  public Path tempDir;
+
+  @Test
+  public void shouldRecordAndSumUpPhases() throws Exception {
+    ExecutionTimings timings = new ExecutionTimings();
+
+    timings.time("loadGitData", () -> { });
+    timings.time("publishProperties", () -> { });
+    timings.time("publishProperties", () -> { });
+
+    Properties properties = timings.toProperties("git.build.timing.");
+    assertThat(properties.stringPropertyNames())
+        .containsExactlyInAnyOrder(
+            "git.build.timing.loadGitData",
+            "git.build.timing.publishProperties",
+            "git.build.timing.total");
+    assertThat(Double.parseDouble(properties.getProperty("git.build.timing.total")))
+        .isGreaterThanOrEqualTo(0);
+  }
+
+  @Test
+  public void shouldRecordFailedPhases() {
+    ExecutionTimings timings = new ExecutionTimings();
+
+    assertThatThrownBy(
+            () ->
+                timings.time(
+                    "loadGitData",
+                    () -> {
+                      throw new GitCommitIdExecutionException("failed");
+                    }))
+        .isInstanceOf(GitCommitIdExecutionException.class);
+
+    assertThat(timings.toProperties("").stringPropertyNames()).contains("loadGitData");
+  }
+
+  @Test
+  public void shouldWriteReportWithPropertiesSetByTheLoader() throws Exception {
+    ExecutionTimings timings = new ExecutionTimings();
+    GitDataLoader loader =
+        timings.wrap(
+            (cb, properties) -> {
+              properties.setProperty("git.commit.id.full", "1234");
+              properties.putIfAbsent("git.branch", "master");
+              properties.putIfAbsent("git.unchanged", "other");
+            });
+    Properties properties = new Properties();
+    properties.setProperty("git.unchanged", "value");
+
+    timings.time("loadGitData", () -> loader.loadGitData(null, properties));
+    File reportFile = tempDir.resolve("target/git-commit-id/timing.json").toFile();
+    timings.writeReport(reportFile, "io.github.git-commit-id:\"test\":1.0");
+
+    assertThat(properties)
+        .containsEntry("git.commit.id.full", "1234")
+        .containsEntry("git.branch", "master")
+        .containsEntry("git.unchanged", "value");
+    String report = new String(Files.readAllBytes(reportFile.toPath()), StandardCharsets.UTF_8);
+    assertThat(report)
+        .contains("\"project\": \"io.github.git-commit-id:\\\"test\\\":1.0\"")
+        .contains("\"totalMillis\": ")
+        .contains("\"loadGitData\": ")
+        .contains("\"git.commit.id.full\": ")
+        .contains("\"git.branch\": ")
+        .doesNotContain("git.unchanged");
+  }
+
+  @Test
+  public void shouldRecordPropertiesComputedByTheCore() throws Exception {
+    Path repository = tempDir.resolve("repository");
+    try (Git git = initRepository(repository)) {
+      commit(git, "initial");
+    }
+    GitCommitIdPlugin.Callback cb = mockCallback(repository);
+    ExecutionTimings timings = new ExecutionTimings();
+    Properties properties = new Properties();
+
+    // the per property timings rely on the core setting every property on the given properties
+    timings.time(
+        "loadGitData",
+        () ->
+            timings
+                .wrap(GitCommitIdPluginRunner.DEFAULT_GIT_DATA_LOADER)
+                .loadGitData(cb, properties));
+    File reportFile = tempDir.resolve("timing.json").toFile();
+    timings.writeReport(reportFile, "test");
+
+    assertThat(properties).containsKeys("git.commit.id.full", "git.branch", "git.dirty");
+    String report = new String(Files.readAllBytes(reportFile.toPath()), StandardCharsets.UTF_8);
+    for (String key : properties.stringPropertyNames()) {
+      assertThat(report).contains("\"" + key + "\": ");
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Testcases to verify that the {@link FlightRecorderEvents} are recorded properly.
+ */
+public class FlightRecorderEventsTest {
+  @TempDir
+  public Path tempDir;
+
+  @Test
+  public void shouldRecordPhasesAndGitProperties() throws Exception {
+    Path recordingFile = tempDir.resolve("recording.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(FlightRecorderEvents.PhaseEvent.NAME).withThreshold(Duration.ZERO);
+      recording.enable(FlightRecorderEvents.GitPropertyEvent.NAME).withThreshold(Duration.ZERO);
+      recording.start();
+
+      ExecutionTimings timings = new ExecutionTimings();
+      GitCommitIdPluginRunner.GitDataLoader loader =
+          timings.wrap(
+              (cb, properties) -> {
+                properties.setProperty("git.commit.id.full", "1234");
+                properties.setProperty("git.branch", "master");
+                properties.setProperty("git.dirty", "false");
+              });
+      timings.time(
+          ExecutionTimings.LOAD_GIT_DATA, () -> loader.loadGitData(null, new Properties()));
+      timings.time("generatePropertiesFile", () -> { });
+
+      recording.stop();
+      recording.dump(recordingFile);
+    }
+
+    List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+    assertThat(filter(events, FlightRecorderEvents.PhaseEvent.NAME))
+        .extracting(e -> e.getString("phase"))
+        .containsExactly(ExecutionTimings.LOAD_GIT_DATA, "generatePropertiesFile");
+    assertThat(filter(events, FlightRecorderEvents.GitPropertyEvent.NAME))
+        .extracting(e -> e.getString("property"))
+        .containsExactly("git.commit.id.full", "git.branch", "git.dirty");
+  }
+
+  @Test
+  public void shouldRecordGitOperationsAndNativeGitCommands() throws Exception {
+    Path repository = tempDir.resolve("repository");
+    try (Git git = GitDataLoaderTestSupport.initRepository(repository)) {
+      GitDataLoaderTestSupport.commit(git, "initial");
+    }
+    GitDataCallback cb = GitDataLoaderTestSupport.mockCallback(repository);
+    when(cb.useNativeGit()).thenReturn(true);
+    when(cb.getNativeGitTimeoutInMs()).thenReturn(30000L);
+
+    Path recordingFile = tempDir.resolve("recording.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(FlightRecorderEvents.GitOperationEvent.NAME).withThreshold(Duration.ZERO);
+      recording.enable(FlightRecorderEvents.GitCommandEvent.NAME).withThreshold(Duration.ZERO);
+      recording.start();
+
+      assertThat(
+              DirtyCheck.isDirty(
+                  cb, repository.resolve(".git").toFile(), DirtyCheck.Mode.TRACKED_ONLY, false))
+          .isFalse();
+
+      recording.stop();
+      recording.dump(recordingFile);
+    }
+
+    List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+    assertThat(filter(events, FlightRecorderEvents.GitOperationEvent.NAME))
+        .extracting(e -> e.getString("operation"))
+        .containsExactly("tracked-only dirty check with native git");
+    assertThat(filter(events, FlightRecorderEvents.GitCommandEvent.NAME))
+        .isNotEmpty()
+        .allSatisfy(
+            e -> {
+              assertThat(e.getString("command")).startsWith("git ");
+              assertThat(e.getInt("exitValue")).isZero();
+            });
+  }
+
+  private static List<RecordedEvent> filter(List<RecordedEvent> events, String name) {
+    return events.stream()
+        .filter(e -> e.getEventType().getName().equals(name))
+        .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+        .collect(Collectors.toList());
+  }
+}
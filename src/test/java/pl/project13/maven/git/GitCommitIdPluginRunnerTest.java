@@ -0,0 +1,98 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static pl.project13.maven.git.GitDataLoaderTestSupport.mockCallback;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.project13.core.GitCommitIdPlugin;
+import pl.project13.maven.git.GitCommitIdPluginRunner.GitDataLoader;
+
+/**
+ * Testcases to verify that the {@link GitCommitIdPluginRunner} works properly.
+ */
+public class GitCommitIdPluginRunnerTest {
+  @TempDir
+  public Path baseDir;
+
+  private GitCommitIdPlugin.Callback cb;
+  private AtomicInteger invocations;
+  private GitDataLoader countingLoader;
+
+  @BeforeEach
+  public void setUp() {
+    cb = mockCallback(baseDir);
+
+    invocations = new AtomicInteger();
+    countingLoader =
+        (callback, properties) -> {
+          invocations.incrementAndGet();
+          properties.put("git.commit.id.full", "commit");
+        };
+  }
+
+  @Test
+  public void shouldSkipGitDataWhenOnlyBuildPropertiesAreIncluded() throws Exception {
+    when(cb.getIncludeOnlyProperties())
+        .thenReturn(Collections.singletonList("^git.build.version$"));
+
+    Properties properties = new Properties();
+    GitCommitIdPluginRunner.runPlugin(cb, properties, countingLoader);
+
+    assertThat(invocations.get()).isEqualTo(0);
+    assertThat(properties).containsOnlyKeys("git.build.version");
+  }
+
+  @Test
+  public void shouldSkipGitDataWhenAllGitPropertiesAreExcluded() {
+    when(cb.getExcludeProperties())
+        .thenReturn(Collections.singletonList("^git.(?!build.(time|version|host)).*$"));
+
+    assertThat(GitCommitIdPluginRunner.isAnyGitDataIncluded(cb)).isFalse();
+  }
+
+  @Test
+  public void shouldLoadGitDataWhenAnyGitPropertyIsIncluded() throws Exception {
+    when(cb.getExcludeProperties())
+        .thenReturn(Arrays.asList("^git.local.branch.*$", "^git.total.commit.count$"));
+
+    Properties properties = new Properties();
+    GitCommitIdPluginRunner.runPlugin(cb, properties, countingLoader);
+
+    assertThat(invocations.get()).isEqualTo(1);
+    assertThat(properties).containsEntry("git.commit.id.full", "commit");
+  }
+
+  @Test
+  public void shouldRespectCustomPrefix() {
+    when(cb.getPrefixDot()).thenReturn("custom.");
+    when(cb.getIncludeOnlyProperties()).thenReturn(Collections.singletonList("^custom.dirty$"));
+
+    assertThat(GitCommitIdPluginRunner.isAnyGitDataIncluded(cb)).isTrue();
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static pl.project13.maven.git.GitDataLoaderTestSupport.commit;
+import static pl.project13.maven.git.GitDataLoaderTestSupport.initRepository;
+import static pl.project13.maven.git.GitDataLoaderTestSupport.mockCallback;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.project13.core.GitCommitIdPlugin;
+import pl.project13.log.DummyTestLoggerBridge;
+import pl.project13.maven.git.GitCommitIdPluginRunner.GitDataLoader;
+
+/**
+ * Testcases to verify that the {@link GitDataCache} works properly.
+ */
+public class GitDataCacheTest {
+  @TempDir
+  public Path repository;
+
+  @TempDir
+  public Path buildDirectory;
+
+  private Git git;
+  private GitCommitIdPlugin.Callback cb;
+  private AtomicInteger invocations;
+  private GitDataLoader countingLoader;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    git = initRepository(repository);
+    commit(git, "initial");
+
+    cb = mockCallback(repository);
+    when(cb.getExcludeProperties()).thenReturn(Collections.singletonList("git.dirty"));
+
+    invocations = new AtomicInteger();
+    countingLoader =
+        (callback, properties) -> {
+          invocations.incrementAndGet();
+          properties.putIfAbsent("git.commit.id.full", "commit-" + invocations.get());
+          properties.putIfAbsent("git.dirty", "dirty-" + invocations.get());
+        };
+  }
+
+  @AfterEach
+  public void tearDown() {
+    git.close();
+  }
+
+  @Test
+  public void shouldServeGitDataFromCacheFileWhileRepositoryIsUnchanged() throws Exception {
+    GitDataLoader loader = newCache().wrap(countingLoader);
+
+    Properties first = load(loader);
+    Properties second = load(loader);
+
+    assertThat(invocations.get()).isEqualTo(1);
+    assertThat(second.getProperty("git.commit.id.full")).isEqualTo("commit-1");
+    assertThat(first.getProperty("git.commit.id.full")).isEqualTo("commit-1");
+  }
+
+  @Test
+  public void shouldInvalidateCacheFileAfterNewCommit() throws Exception {
+    GitDataLoader loader = newCache().wrap(countingLoader);
+
+    load(loader);
+    commit(git, "second");
+    Properties second = load(loader);
+
+    assertThat(invocations.get()).isEqualTo(2);
+    assertThat(second.getProperty("git.commit.id.full")).isEqualTo("commit-2");
+  }
+
+  @Test
+  public void shouldRecomputeGitDataAfterConfigurationChange() throws Exception {
+    GitDataLoader loader = newCache().wrap(countingLoader);
+
+    load(loader);
+    when(cb.getAbbrevLength()).thenReturn(10);
+    load(loader);
+
+    assertThat(invocations.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldNeverServeDirtyFlagFromCache() throws Exception {
+    when(cb.getExcludeProperties()).thenReturn(Collections.emptyList());
+    write("tracked.txt", "initial");
+    git.add().addFilepattern("tracked.txt").call();
+    commit(git, "tracked");
+    GitDataLoader loader = newCache().wrap(countingLoader);
+
+    Properties first = load(loader);
+    write("tracked.txt", "modified");
+    Properties second = load(loader);
+
+    // the dirty check alone determines the flag, the loader is not invoked again
+    assertThat(invocations.get()).isEqualTo(1);
+    assertThat(first.getProperty("git.dirty")).isEqualTo("dirty-1");
+    assertThat(second.getProperty("git.commit.id.full")).isEqualTo("commit-1");
+    assertThat(second.getProperty("git.dirty")).isEqualTo("true");
+  }
+
+  @Test
+  public void shouldComputeOtherVolatilePropertiesWithTheLoader() throws Exception {
+    when(cb.getExcludeProperties()).thenReturn(Collections.emptyList());
+    // the ahead/behind counts of an online build can't be cached
+    when(cb.isOffline()).thenReturn(false);
+    GitDataLoader loader = newCache().wrap(countingLoader);
+
+    load(loader);
+    Properties second = load(loader);
+
+    assertThat(invocations.get()).isEqualTo(2);
+    assertThat(second.getProperty("git.commit.id.full")).isEqualTo("commit-1");
+    assertThat(second.getProperty("git.dirty")).isEqualTo("false");
+  }
+
+  private GitDataCache newCache() {
+    return new GitDataCache(
+        buildDirectory.resolve("git-data-cache.properties").toFile(), new DummyTestLoggerBridge());
+  }
+
+  private void write(String file, String content) throws Exception {
+    Files.write(repository.resolve(file), content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private Properties load(GitDataLoader loader) throws Exception {
+    Properties properties = new Properties();
+    loader.loadGitData(cb, properties);
+    return properties;
+  }
+}
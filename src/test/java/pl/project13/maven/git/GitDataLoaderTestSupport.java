@@ -0,0 +1,92 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Collections;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import pl.project13.core.CommitIdGenerationMode;
+import pl.project13.core.GitCommitIdPlugin;
+import pl.project13.core.git.GitDescribeConfig;
+import pl.project13.log.DummyTestLoggerBridge;
+import pl.project13.maven.git.GitCommitIdPluginRunner.GitDataLoader;
+
+/**
+ * The repositories and the mocked {@link GitCommitIdPlugin.Callback} the tests of the {@link
+ * GitDataLoader} and its decorators share.
+ */
+final class GitDataLoaderTestSupport {
+  private GitDataLoaderTestSupport() {}
+
+  /**
+   * Mocks the configuration of an offline execution with the default prefix, a full commit id, a
+   * skipped describe and the full (sequential) dirty check. Tests stub whatever else they need (or
+   * need differently).
+   *
+   * @param baseDir The base directory of the project (and the working tree of the repository)
+   * @return The mocked callback
+   */
+  static GitDataCallback mockCallback(Path baseDir) {
+    GitDataCallback cb = mock(GitDataCallback.class);
+    when(cb.getLogInterface()).thenReturn(new DummyTestLoggerBridge());
+    when(cb.getProjectBaseDir()).thenReturn(baseDir.toFile());
+    when(cb.getDotGitDirectory()).thenReturn(new File(baseDir.toFile(), ".git"));
+    when(cb.getPrefixDot()).thenReturn("git.");
+    when(cb.getDateFormat()).thenReturn("yyyy-MM-dd'T'HH:mm:ssZ");
+    GitDescribeConfig gitDescribe = new GitDescribeConfig();
+    gitDescribe.setSkip(true);
+    when(cb.getGitDescribe()).thenReturn(gitDescribe);
+    when(cb.getCommitIdGenerationMode()).thenReturn(CommitIdGenerationMode.FULL);
+    when(cb.getEvaluateOnCommit()).thenReturn("HEAD");
+    when(cb.getAbbrevLength()).thenReturn(7);
+    when(cb.getSystemEnv()).thenReturn(Collections.emptyMap());
+    when(cb.supplyProjectVersion()).thenReturn(() -> "1.0.0");
+    when(cb.isOffline()).thenReturn(true);
+    when(cb.getDirtyCheckMode()).thenReturn(DirtyCheck.Mode.FULL);
+    return cb;
+  }
+
+  /**
+   * Creates an empty repository whose initial branch is {@code master}.
+   *
+   * @param workTree The working tree of the repository
+   * @return The repository, which needs to be closed by the caller
+   * @throws Exception if the repository could not be created
+   */
+  static Git initRepository(Path workTree) throws Exception {
+    return Git.init().setDirectory(workTree.toFile()).setInitialBranch("master").call();
+  }
+
+  /**
+   * Creates an empty commit.
+   *
+   * @param git The repository
+   * @param message The message of the commit
+   * @return The commit
+   * @throws Exception if the commit could not be created
+   */
+  static RevCommit commit(Git git, String message) throws Exception {
+    return git.commit().setMessage(message).setAllowEmpty(true).setSign(false).call();
+  }
+}
@@ -0,0 +1,292 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+import static pl.project13.maven.git.GitDataLoaderTestSupport.initRepository;
+import static pl.project13.maven.git.GitDataLoaderTestSupport.mockCallback;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.project13.core.GitCommitIdExecutionException;
+import pl.project13.log.DummyTestLoggerBridge;
+import pl.project13.maven.git.GitCommitIdPluginRunner.GitDataLoader;
+
+/**
+ * Testcases to verify that the {@link GitDataSessionStore} works properly.
+ */
+public class GitDataSessionStoreTest {
+  @TempDir
+  public Path tempDir;
+
+  @Test
+  public void shouldComputeGitDataOnlyOnceForConcurrentModules() throws Exception {
+    Path repository = createRepository("repository");
+    AtomicInteger invocations = new AtomicInteger();
+    CountDownLatch allModulesStarted = new CountDownLatch(1);
+    GitDataLoader loader =
+        newStore()
+            .wrap(
+                (cb, properties) -> {
+                  invocations.incrementAndGet();
+                  try {
+                    allModulesStarted.await(10, TimeUnit.SECONDS);
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                  }
+                  properties.put("git.commit.id.full", "commit");
+                });
+
+    int modules = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(modules);
+    try {
+      List<Future<Properties>> results = new ArrayList<>();
+      for (int i = 0; i < modules; i++) {
+        Path module = Files.createDirectories(repository.resolve("module-" + i));
+        results.add(executor.submit(() -> load(loader, module)));
+      }
+      allModulesStarted.countDown();
+
+      for (Future<Properties> result : results) {
+        assertThat(result.get(30, TimeUnit.SECONDS).getProperty("git.commit.id.full"))
+            .isEqualTo("commit");
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(invocations.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldComputeGitDataPerRepository() throws Exception {
+    Path first = createRepository("first");
+    Path second = createRepository("second");
+    AtomicInteger invocations = new AtomicInteger();
+    GitDataLoader loader =
+        newStore()
+            .wrap(
+                (cb, properties) ->
+                    properties.put(
+                        "git.commit.id.full", "commit-" + invocations.incrementAndGet()));
+
+    Properties fromFirst = load(loader, first);
+    Properties fromSecond = load(loader, second);
+    Properties fromFirstAgain = load(loader, first);
+
+    assertThat(invocations.get()).isEqualTo(2);
+    assertThat(fromFirst.getProperty("git.commit.id.full")).isEqualTo("commit-1");
+    assertThat(fromSecond.getProperty("git.commit.id.full")).isEqualTo("commit-2");
+    assertThat(fromFirstAgain.getProperty("git.commit.id.full")).isEqualTo("commit-1");
+  }
+
+  @Test
+  public void shouldComputeGitDataPerDirtyCheckMode() throws Exception {
+    Path repository = createRepository("repository");
+    AtomicInteger invocations = new AtomicInteger();
+    GitDataLoader loader =
+        newStore()
+            .wrap(
+                (cb, properties) -> {
+                  invocations.incrementAndGet();
+                  GitDataCallback gitDataCallback = (GitDataCallback) cb;
+                  properties.put(
+                      "git.dirty",
+                      gitDataCallback.getDirtyCheckMode()
+                          + (gitDataCallback.isParallelDirtyCheck() ? " in parallel" : ""));
+                });
+
+    GitDataCallback indexOnly = mockCallback(repository);
+    when(indexOnly.getDirtyCheckMode()).thenReturn(DirtyCheck.Mode.INDEX_ONLY);
+    GitDataCallback parallel = mockCallback(repository);
+    when(parallel.isParallelDirtyCheck()).thenReturn(true);
+    Properties fromFull = load(loader, repository);
+    Properties fromIndexOnly = load(loader, indexOnly);
+    Properties fromParallel = load(loader, parallel);
+    Properties fromFullAgain = load(loader, repository);
+
+    assertThat(invocations.get()).isEqualTo(3);
+    assertThat(fromFull.getProperty("git.dirty")).isEqualTo("FULL");
+    assertThat(fromIndexOnly.getProperty("git.dirty")).isEqualTo("INDEX_ONLY");
+    assertThat(fromParallel.getProperty("git.dirty")).isEqualTo("FULL in parallel");
+    assertThat(fromFullAgain.getProperty("git.dirty")).isEqualTo("FULL");
+  }
+
+  @Test
+  public void shouldNotRememberFailedComputation() throws Exception {
+    Path repository = createRepository("repository");
+    AtomicInteger invocations = new AtomicInteger();
+    GitDataLoader loader =
+        newStore()
+            .wrap(
+                (cb, properties) -> {
+                  if (invocations.incrementAndGet() == 1) {
+                    throw new GitCommitIdExecutionException("failed");
+                  }
+                  properties.put("git.commit.id.full", "commit");
+                });
+
+    assertThatThrownBy(() -> load(loader, repository))
+        .isInstanceOf(GitCommitIdExecutionException.class);
+    Properties properties = load(loader, repository);
+
+    assertThat(invocations.get()).isEqualTo(2);
+    assertThat(properties.getProperty("git.commit.id.full")).isEqualTo("commit");
+  }
+
+  @Test
+  public void shouldRetryFailedComputationForWaitingModules() throws Exception {
+    Path repository = createRepository("repository");
+    AtomicInteger invocations = new AtomicInteger();
+    CountDownLatch secondModuleWaiting = new CountDownLatch(1);
+    ConcurrentHashMap<String, CompletableFuture<Properties>> gitDataByKey =
+        new ConcurrentHashMap<String, CompletableFuture<Properties>>() {
+          @Override
+          public CompletableFuture<Properties> putIfAbsent(
+              String key, CompletableFuture<Properties> value) {
+            CompletableFuture<Properties> inFlight = super.putIfAbsent(key, value);
+            if (inFlight != null) {
+              secondModuleWaiting.countDown();
+            }
+            return inFlight;
+          }
+        };
+    GitDataLoader loader =
+        new GitDataSessionStore(gitDataByKey, new DummyTestLoggerBridge())
+            .wrap(
+                (cb, properties) -> {
+                  if (invocations.incrementAndGet() == 1) {
+                    try {
+                      secondModuleWaiting.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                      Thread.currentThread().interrupt();
+                    }
+                    throw new GitCommitIdExecutionException("failed");
+                  }
+                  properties.put("git.commit.id.full", "commit");
+                });
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Properties> first = executor.submit(() -> load(loader, repository));
+      while (invocations.get() == 0) {
+        Thread.sleep(1);
+      }
+      Future<Properties> second = executor.submit(() -> load(loader, repository));
+
+      assertThatThrownBy(() -> first.get(30, TimeUnit.SECONDS))
+          .hasCauseInstanceOf(GitCommitIdExecutionException.class);
+      assertThat(second.get(30, TimeUnit.SECONDS).getProperty("git.commit.id.full"))
+          .isEqualTo("commit");
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(invocations.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldNotOverrideExistingProperties() throws Exception {
+    Path repository = createRepository("repository");
+    GitDataLoader loader =
+        newStore().wrap((cb, properties) -> properties.put("git.commit.id.full", "commit"));
+
+    Properties properties = new Properties();
+    properties.setProperty("git.commit.id.full", "existing");
+    loader.loadGitData(mockCallback(repository), properties);
+
+    assertThat(properties.getProperty("git.commit.id.full")).isEqualTo("existing");
+  }
+
+  @Test
+  public void shouldJoinPreloadedGitData() throws Exception {
+    Path repository = createRepository("repository");
+    GitDataSessionStore store = newStore();
+    AtomicInteger invocations = new AtomicInteger();
+
+    boolean preloaded =
+        store.preload(
+            mockCallback(repository),
+            (cb, properties) -> properties.put("git.commit.id.full", "preloaded"));
+    Properties properties =
+        load(
+            store.wrap(
+                (cb, props) -> {
+                  invocations.incrementAndGet();
+                  props.put("git.commit.id.full", "computed");
+                }),
+            repository);
+
+    assertThat(preloaded).isTrue();
+    assertThat(invocations.get()).isEqualTo(0);
+    assertThat(properties.getProperty("git.commit.id.full")).isEqualTo("preloaded");
+  }
+
+  @Test
+  public void shouldComputeGitDataWhenPreloadFails() throws Exception {
+    Path repository = createRepository("repository");
+    GitDataSessionStore store = newStore();
+
+    boolean preloaded =
+        store.preload(
+            mockCallback(repository),
+            (cb, properties) -> {
+              throw new GitCommitIdExecutionException("failed");
+            });
+    Properties properties =
+        load(
+            store.wrap((cb, props) -> props.put("git.commit.id.full", "computed")), repository);
+
+    assertThat(preloaded).isFalse();
+    assertThat(properties.getProperty("git.commit.id.full")).isEqualTo("computed");
+  }
+
+  private GitDataSessionStore newStore() {
+    return new GitDataSessionStore(new ConcurrentHashMap<>(), new DummyTestLoggerBridge());
+  }
+
+  private Path createRepository(String name) throws Exception {
+    Path repository = Files.createDirectories(tempDir.resolve(name));
+    initRepository(repository).close();
+    return repository;
+  }
+
+  private Properties load(GitDataLoader loader, Path baseDir) throws Exception {
+    return load(loader, mockCallback(baseDir));
+  }
+
+  private Properties load(GitDataLoader loader, GitDataCallback cb) throws Exception {
+    Properties properties = new Properties();
+    loader.loadGitData(cb, properties);
+    return properties;
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static pl.project13.maven.git.GitDataLoaderTestSupport.commit;
+import static pl.project13.maven.git.GitDataLoaderTestSupport.initRepository;
+import static pl.project13.maven.git.GitDataLoaderTestSupport.mockCallback;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.RevWalkUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.project13.core.GitCommitIdExecutionException;
+import pl.project13.core.GitCommitIdPlugin;
+import pl.project13.core.git.GitDescribeConfig;
+import pl.project13.log.DummyTestLoggerBridge;
+import pl.project13.maven.git.GitCommitIdPluginRunner.GitDataLoader;
+
+/**
+ * Testcases to verify that the {@link HistoryCache} works properly.
+ */
+public class HistoryCacheTest {
+  @TempDir
+  public Path repository;
+
+  @TempDir
+  public Path cacheDirectory;
+
+  private Git git;
+  private GitCommitIdPlugin.Callback cb;
+  private List<String> computed;
+  private GitDataLoader walkingLoader;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    git = initRepository(repository);
+    commit(git, "initial");
+
+    cb = mockCallback(repository);
+    when(cb.getGitDescribe()).thenReturn(new GitDescribeConfig());
+
+    // records which of the history derived properties had to be computed
+    computed = new ArrayList<>();
+    walkingLoader =
+        (callback, properties) -> {
+          if (!properties.containsKey("git.total.commit.count")) {
+            computed.add("git.total.commit.count");
+            properties.setProperty("git.total.commit.count", countWithRevWalk());
+          }
+          if (!properties.containsKey("git.closest.tag.name")) {
+            computed.add("git.closest.tag.name");
+            properties.setProperty("git.closest.tag.name", "tag-" + computed.size());
+          }
+        };
+  }
+
+  @AfterEach
+  public void tearDown() {
+    git.close();
+  }
+
+  @Test
+  public void shouldReuseHistoryOfKnownCommit() throws Exception {
+    GitDataLoader loader = newCache().wrap(walkingLoader);
+
+    Properties first = load(loader);
+    Properties second = load(loader);
+
+    assertThat(computed).containsExactly("git.total.commit.count", "git.closest.tag.name");
+    assertThat(second).isEqualTo(first);
+  }
+
+  @Test
+  public void shouldCountNewCommitsFromClosestKnownAncestor() throws Exception {
+    GitDataLoader loader = newCache().wrap(walkingLoader);
+    load(loader);
+    computed.clear();
+
+    commit(git, "second");
+    git.branchCreate().setName("feature").call();
+    commit(git, "third");
+    git.checkout().setName("feature").call();
+    commit(git, "feature");
+    git.checkout().setName("master").call();
+    git.merge().include(git.getRepository().resolve("feature")).setMessage("merge").call();
+    Properties properties = load(loader);
+
+    assertThat(computed).containsExactly("git.closest.tag.name");
+    assertThat(properties.getProperty("git.total.commit.count"))
+        .isEqualTo(countWithRevWalk())
+        .isEqualTo("5");
+  }
+
+  @Test
+  public void shouldRecomputeClosestTagAfterNewTag() throws Exception {
+    GitDataLoader loader = newCache().wrap(walkingLoader);
+    load(loader);
+    computed.clear();
+
+    git.tag().setName("v1.0.0").setAnnotated(false).call();
+    load(loader);
+
+    assertThat(computed).containsExactly("git.closest.tag.name");
+  }
+
+  @Test
+  public void shouldNotCacheWithPerModuleVersions() throws Exception {
+    when(cb.isPerModuleVersions()).thenReturn(true);
+    GitDataLoader loader = newCache().wrap(walkingLoader);
+
+    load(loader);
+    load(loader);
+
+    assertThat(computed).hasSize(4);
+  }
+
+  @Test
+  public void shouldKeepEntriesOfConcurrentBuilds() throws Exception {
+    Path file = cacheDirectory.resolve("history-cache.properties");
+    int builds = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(builds);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < builds; i++) {
+        Properties updates = new Properties();
+        updates.setProperty("commit" + i + ".total", String.valueOf(i));
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  newCache().update(file, updates);
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Properties cache = new Properties();
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      cache.load(reader);
+    }
+    for (int i = 0; i < builds; i++) {
+      assertThat(cache.getProperty("commit" + i + ".total")).isEqualTo(String.valueOf(i));
+    }
+  }
+
+  @Test
+  public void shouldEvictOldestCommits() {
+    Properties cache = new Properties();
+    cache.setProperty("legacy.total", "1");
+    cache.setProperty("older.total", "2");
+    cache.setProperty("older.written", "1000");
+    cache.setProperty("newer.total", "3");
+    cache.setProperty("newer.written", "2000");
+
+    HistoryCache.evictOldest(cache, 3);
+
+    assertThat(cache.stringPropertyNames())
+        .containsExactlyInAnyOrder("newer.total", "newer.written");
+  }
+
+  private HistoryCache newCache() {
+    return new HistoryCache(
+        cacheDirectory.resolve("history-cache.properties").toFile(), new DummyTestLoggerBridge());
+  }
+
+  private Properties load(GitDataLoader loader) throws Exception {
+    Properties properties = new Properties();
+    loader.loadGitData(cb, properties);
+    return properties;
+  }
+
+  private String countWithRevWalk() throws GitCommitIdExecutionException {
+    try (RevWalk walk = new RevWalk(git.getRepository())) {
+      return String.valueOf(
+          RevWalkUtils.count(
+              walk, walk.parseCommit(git.getRepository().resolve("HEAD")), null));
+    } catch (IOException e) {
+      throw new GitCommitIdExecutionException("Unable to count the commits", e);
+    }
+  }
+}
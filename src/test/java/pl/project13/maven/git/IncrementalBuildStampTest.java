@@ -0,0 +1,77 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.project13.log.DummyTestLoggerBridge;
+
+/**
+ * Testcases to verify that the {@link IncrementalBuildStamp} works properly.
+ */
+public class IncrementalBuildStampTest {
+  @TempDir
+  public Path tempDir;
+
+  @Test
+  public void shouldOnlyBeUpToDateUntilRepositoryChanges() throws Exception {
+    Path repository = tempDir.resolve("repository");
+    File dotGitDir = repository.resolve(".git").toFile();
+    IncrementalBuildStamp stamp =
+        new IncrementalBuildStamp(
+            tempDir.resolve("target/git-commit-id/incremental-build.fingerprint").toFile(),
+            new DummyTestLoggerBridge());
+
+    try (Git git =
+        Git.init().setDirectory(repository.toFile()).setInitialBranch("master").call()) {
+      Files.write(repository.resolve("file.txt"), "1".getBytes(StandardCharsets.UTF_8));
+      git.add().addFilepattern("file.txt").call();
+      git.commit().setMessage("initial").call();
+
+      String fingerprint = stamp.fingerprint(dotGitDir);
+      assertThat(stamp.isUpToDate(fingerprint)).isFalse();
+
+      stamp.update(fingerprint);
+      assertThat(stamp.isUpToDate(stamp.fingerprint(dotGitDir))).isTrue();
+
+      git.checkout().setCreateBranch(true).setName("feature").call();
+      assertThat(stamp.isUpToDate(stamp.fingerprint(dotGitDir))).isFalse();
+    }
+  }
+
+  @Test
+  public void shouldNeverBeUpToDateWithoutFingerprint() {
+    IncrementalBuildStamp stamp =
+        new IncrementalBuildStamp(
+            tempDir.resolve("incremental-build.fingerprint").toFile(),
+            new DummyTestLoggerBridge());
+
+    stamp.update(null);
+
+    assertThat(stamp.isUpToDate(null)).isFalse();
+    assertThat(tempDir.resolve("incremental-build.fingerprint")).doesNotExist();
+  }
+}
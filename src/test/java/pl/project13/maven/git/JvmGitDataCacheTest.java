@@ -0,0 +1,176 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static pl.project13.maven.git.GitDataLoaderTestSupport.commit;
+import static pl.project13.maven.git.GitDataLoaderTestSupport.initRepository;
+import static pl.project13.maven.git.GitDataLoaderTestSupport.mockCallback;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.project13.core.GitCommitIdPlugin;
+import pl.project13.log.DummyTestLoggerBridge;
+import pl.project13.maven.git.GitCommitIdPluginRunner.GitDataLoader;
+
+/**
+ * Testcases to verify that the {@link JvmGitDataCache} works properly.
+ */
+public class JvmGitDataCacheTest {
+  @TempDir
+  public Path repository;
+
+  private Git git;
+  private JvmGitDataCache cache;
+  private GitCommitIdPlugin.Callback cb;
+  private AtomicInteger invocations;
+  private GitDataLoader loader;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    git = initRepository(repository);
+    commit(git, "initial");
+
+    cb = mockCallback(repository);
+    when(cb.getExcludeProperties()).thenReturn(Collections.singletonList("git.dirty"));
+
+    cache = new JvmGitDataCache();
+    invocations = new AtomicInteger();
+    loader =
+        cache.wrap(
+            (callback, properties) ->
+                properties.putIfAbsent(
+                    "git.commit.id.full", "commit-" + invocations.incrementAndGet()),
+            new DummyTestLoggerBridge());
+  }
+
+  @AfterEach
+  public void tearDown() throws Exception {
+    cache.close();
+    git.close();
+  }
+
+  @Test
+  public void shouldServeGitDataFromMemoryWhileRepositoryIsUnchanged() throws Exception {
+    load();
+    Properties second = load();
+
+    assertThat(invocations.get()).isEqualTo(1);
+    assertThat(second.getProperty("git.commit.id.full")).isEqualTo("commit-1");
+  }
+
+  @Test
+  public void shouldInvalidateMemoryAfterNewCommit() throws Exception {
+    load();
+    commit(git, "second");
+    Properties second = load();
+
+    assertThat(invocations.get()).isEqualTo(2);
+    assertThat(second.getProperty("git.commit.id.full")).isEqualTo("commit-2");
+  }
+
+  @Test
+  public void shouldInvalidateMemoryAfterNewTag() throws Exception {
+    load();
+    git.tag().setName("v1.0.0").setAnnotated(false).call();
+
+    // the watch service delivers its events asynchronously
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (invocations.get() == 1 && System.nanoTime() < deadline) {
+      Thread.sleep(50);
+      load();
+    }
+
+    assertThat(invocations.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldDetermineDirtyFlagWithoutTheLoader() throws Exception {
+    when(cb.getExcludeProperties()).thenReturn(Collections.emptyList());
+    Files.write(repository.resolve("tracked.txt"), "initial".getBytes(StandardCharsets.UTF_8));
+    git.add().addFilepattern("tracked.txt").call();
+    commit(git, "tracked");
+
+    assertThat(load().getProperty("git.commit.id.full")).isEqualTo("commit-1");
+    Files.write(repository.resolve("tracked.txt"), "modified".getBytes(StandardCharsets.UTF_8));
+    Properties second = load();
+
+    assertThat(invocations.get()).isEqualTo(1);
+    assertThat(second.getProperty("git.commit.id.full")).isEqualTo("commit-1");
+    assertThat(second.getProperty("git.dirty")).isEqualTo("true");
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedGitData(@TempDir Path other) throws Exception {
+    cache.close();
+    cache = new JvmGitDataCache(2);
+    loader =
+        cache.wrap(
+            (callback, properties) ->
+                properties.putIfAbsent(
+                    "git.commit.id.full", "commit-" + invocations.incrementAndGet()),
+            new DummyTestLoggerBridge());
+
+    loadWithAbbrevLength(7);
+    loadWithAbbrevLength(8);
+    loadWithAbbrevLength(7);
+    // evicts the configuration with an abbrev length of 8, which was used least recently
+    loadWithAbbrevLength(9);
+    assertThat(invocations.get()).isEqualTo(3);
+
+    loadWithAbbrevLength(7);
+    assertThat(invocations.get()).isEqualTo(3);
+    loadWithAbbrevLength(8);
+    assertThat(invocations.get()).isEqualTo(4);
+    assertThat(cache.isWatched(repository.resolve(".git"))).isTrue();
+
+    // evicts the last git data of the first repository, which releases its watches
+    initRepository(other).close();
+    cb = mockCallback(other);
+    when(cb.getExcludeProperties()).thenReturn(Collections.singletonList("git.dirty"));
+    loadWithAbbrevLength(7);
+    assertThat(cache.isWatched(repository.resolve(".git"))).isTrue();
+    loadWithAbbrevLength(8);
+    assertThat(invocations.get()).isEqualTo(6);
+    assertThat(cache.isWatched(repository.resolve(".git"))).isFalse();
+    assertThat(cache.isWatched(other.resolve(".git"))).isTrue();
+  }
+
+  private void loadWithAbbrevLength(int abbrevLength) throws Exception {
+    when(cb.getAbbrevLength()).thenReturn(abbrevLength);
+    load();
+  }
+
+  private Properties load() throws Exception {
+    Properties properties = new Properties();
+    loader.loadGitData(cb, properties);
+    return properties;
+  }
+}
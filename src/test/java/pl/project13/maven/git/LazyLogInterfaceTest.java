@@ -0,0 +1,88 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import pl.project13.log.DummyTestLoggerBridge;
+
+/**
+ * Testcases to verify that the {@link LazyLogInterface} works properly.
+ */
+public class LazyLogInterfaceTest {
+  @Test
+  public void shouldLogSuppliedMessagesToAdaptedLogInterface() {
+    DummyTestLoggerBridge logger = new DummyTestLoggerBridge();
+    LazyLogInterface log = LazyLogInterface.of(logger);
+
+    log.info(() -> "info");
+    log.debug(() -> "debug");
+
+    assertThat(log.isEnabled()).isTrue();
+    assertThat(logger.getInfos()).containsExactly("info");
+    assertThat(logger.getDebugs()).containsExactly("debug");
+  }
+
+  @Test
+  public void shouldNotBuildMessagesWhenDisabled() {
+    DummyTestLoggerBridge logger = new DummyTestLoggerBridge();
+    LazyLogInterface disabled =
+        new LazyLogInterface() {
+          @Override
+          public boolean isEnabled() {
+            return false;
+          }
+
+          @Override
+          public void debug(String msg) {
+            logger.debug(msg);
+          }
+
+          @Override
+          public void info(String msg) {
+            logger.info(msg);
+          }
+
+          @Override
+          public void warn(String msg) {
+            logger.warn(msg);
+          }
+
+          @Override
+          public void error(String msg) {
+            logger.error(msg);
+          }
+
+          @Override
+          public void error(String msg, Throwable t) {
+            logger.error(msg, t);
+          }
+        };
+    AtomicInteger builtMessages = new AtomicInteger();
+
+    disabled.info(() -> "info " + builtMessages.incrementAndGet());
+    disabled.debug(() -> "debug " + builtMessages.incrementAndGet());
+
+    assertThat(builtMessages).hasValue(0);
+    assertThat(logger.getInfos()).isEmpty();
+    assertThat(logger.getDebugs()).isEmpty();
+  }
+}
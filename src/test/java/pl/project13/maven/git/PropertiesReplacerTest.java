@@ -22,6 +22,9 @@ import static java.util.Arrays.asList;
 import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
@@ -277,6 +280,53 @@ public class PropertiesReplacerTest {
     assertEquals(exptecedProperties, actualProperties);
   }
 
+  @Test
+  public void testPerformReplacementOnlyEvaluatesExpressionsOnce() throws Throwable {
+    PluginParameterExpressionEvaluator pluginParameterExpressionEvaluator =
+        mock(PluginParameterExpressionEvaluator.class);
+    when(pluginParameterExpressionEvaluator.evaluate("${project.version}")).thenReturn("1.0");
+    PropertiesReplacer replacer =
+        new PropertiesReplacer(mock(LogInterface.class), pluginParameterExpressionEvaluator);
+    Properties actualProperties = build("key1", "value1", "key2", "", "key3", "");
+
+    List<ReplacementProperty> replacementProperties = new ArrayList<>();
+    replacementProperties.add(
+        new ReplacementProperty(null, null, "^$", "${project.version}", true, false, null));
+
+    replacer.performReplacement(actualProperties, replacementProperties);
+
+    assertEquals(build("key1", "value1", "key2", "1.0", "key3", "1.0"), actualProperties);
+    verify(pluginParameterExpressionEvaluator, times(1)).evaluate("${project.version}");
+    verifyNoMoreInteractions(pluginParameterExpressionEvaluator);
+  }
+
+  @Test
+  public void testPerformReplacementInParallelMatchesSequentialReplacement() throws Throwable {
+    PluginParameterExpressionEvaluator pluginParameterExpressionEvaluator =
+        mock(PluginParameterExpressionEvaluator.class);
+    PropertiesReplacer parallelReplacer =
+        new PropertiesReplacer(mock(LogInterface.class), pluginParameterExpressionEvaluator, true);
+    Properties sequentialProperties = new Properties();
+    for (int i = 0; i < 1000; i++) {
+      sequentialProperties.setProperty("git.key" + i, "Feature/Value-" + i);
+    }
+    Properties parallelProperties = new Properties();
+    parallelProperties.putAll(sequentialProperties);
+
+    List<ReplacementProperty> replacementProperties = new ArrayList<>();
+    replacementProperties.add(
+        new ReplacementProperty(null, "sanitized", "[/-]", "_", true, false, null));
+    replacementProperties.add(
+        new ReplacementProperty(null, null, "Value", "v", false, false, null));
+
+    propertiesReplacer.performReplacement(sequentialProperties, replacementProperties);
+    parallelReplacer.performReplacement(parallelProperties, replacementProperties);
+
+    Assertions.assertEquals(2000, parallelProperties.size());
+    assertEquals(sequentialProperties, parallelProperties);
+    Assertions.assertEquals("Feature_v_7", parallelProperties.getProperty("git.key7.sanitized"));
+  }
+
   private Properties build(String... args) {
     if ((args.length == 0) || ((args.length % 2) != 0)) {
       Assertions.fail("Expecting a pair of values...");
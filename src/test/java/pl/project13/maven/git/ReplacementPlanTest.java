@@ -0,0 +1,105 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testcases to verify that the {@link ReplacementPlan} works properly.
+ */
+public class ReplacementPlanTest {
+  @Test
+  public void shouldShareCompiledPlanForEqualConfiguration() {
+    ReplacementPlan plan = ReplacementPlan.compile(createReplacementProperties());
+
+    assertThat(ReplacementPlan.compile(createReplacementProperties())).isSameAs(plan);
+  }
+
+  @Test
+  public void shouldResolveOutputKeysAndApplyRules() {
+    List<ReplacementPlan.Step> steps =
+        ReplacementPlan.compile(createReplacementProperties()).getSteps();
+
+    assertThat(steps).hasSize(2);
+    assertThat(steps.get(0).getOutputKey()).isEqualTo("git.branch.sanitized");
+    assertThat(steps.get(0).apply("Feature/ABC")).isEqualTo("feature-abc");
+    assertThat(steps.get(1).getProperty()).isNull();
+    assertThat(steps.get(1).outputKeyOf("git.tags")).isEqualTo("git.tags");
+    assertThat(steps.get(1).apply("a.b")).isEqualTo("a_b");
+  }
+
+  @Test
+  public void shouldSkipStepsWhoseOutputIsOverwrittenBeforeItIsRead() {
+    List<ReplacementPlan.Step> steps =
+        ReplacementPlan.compile(
+                Arrays.asList(
+                    // dead: git.branch.name is overwritten by the third step
+                    new ReplacementProperty("git.branch", "name", "/", "-", false, false, null),
+                    // live: reads and writes git.tags
+                    new ReplacementProperty("git.tags", null, ",", ";", false, false, null),
+                    new ReplacementProperty("git.branch", "name", "/", "_", false, false, null),
+                    // live: read by the next step
+                    new ReplacementProperty("git.tags", "first", ";.*", "", true, false, null),
+                    new ReplacementProperty("git.tags.first", "first", "v", "", false, false, null),
+                    // live: forced evaluation, but followed by a step for all properties
+                    new ReplacementProperty("git.dirty", null, "x", "y", false, true, null),
+                    new ReplacementProperty(null, null, "x", "y", false, false, null)))
+            .getSteps();
+
+    assertThat(steps)
+        .extracting(ReplacementPlan.Step::isLive)
+        .containsExactly(false, true, true, true, true, true, true);
+  }
+
+  @Test
+  public void shouldKeepStepsAfterStepForAllPropertiesWithOutputSuffix() {
+    List<ReplacementPlan.Step> steps =
+        ReplacementPlan.compile(
+                Arrays.asList(
+                    // live: a step for all properties never is dead
+                    new ReplacementProperty(null, "all", "/", "-", false, false, null),
+                    // live: reads git.branch, overwrites git.branch.all of the previous step
+                    new ReplacementProperty("git.branch", "all", "/", "_", false, false, null),
+                    // live: reads and writes git.branch
+                    new ReplacementProperty("git.branch", null, "/", "_", false, false, null)))
+            .getSteps();
+
+    assertThat(steps.get(0).outputKeyOf("git.branch")).isEqualTo("git.branch.all");
+    assertThat(steps.get(1).getOutputKey()).isEqualTo("git.branch.all");
+    assertThat(steps).extracting(ReplacementPlan.Step::isLive).containsExactly(true, true, true);
+  }
+
+  private static List<ReplacementProperty> createReplacementProperties() {
+    return Arrays.asList(
+        new ReplacementProperty(
+            "git.branch",
+            "sanitized",
+            "/",
+            "-",
+            true,
+            false,
+            Collections.singletonList(new TransformationRule("BEFORE", "LOWER_CASE"))),
+        new ReplacementProperty(null, null, ".", "_", false, false, null));
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Testcases to verify that the {@link RepositoryFingerprint} works properly.
+ */
+public class RepositoryFingerprintTest {
+  @TempDir
+  public Path repository;
+
+  private Git git;
+  private Path gitDir;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    git = Git.init().setDirectory(repository.toFile()).setInitialBranch("master").call();
+    gitDir = repository.resolve(".git");
+    commit("initial");
+  }
+
+  @AfterEach
+  public void tearDown() {
+    git.close();
+  }
+
+  @Test
+  public void shouldBeStableWhenRepositoryIsUnchanged() throws Exception {
+    assertThat(RepositoryFingerprint.of(gitDir)).isEqualTo(RepositoryFingerprint.of(gitDir));
+  }
+
+  @Test
+  public void shouldChangeAfterNewCommit() throws Exception {
+    RepositoryFingerprint before = RepositoryFingerprint.of(gitDir);
+
+    ObjectId commit = commit("second");
+
+    RepositoryFingerprint after = RepositoryFingerprint.of(gitDir);
+    assertThat(after).isNotEqualTo(before);
+    assertThat(after.getHead()).contains("refs/heads/master=" + commit.name());
+  }
+
+  @Test
+  public void shouldResolvePackedRef() throws Exception {
+    ObjectId commit = git.getRepository().resolve("HEAD");
+    Files.delete(gitDir.resolve("refs/heads/master"));
+    Files.write(
+        gitDir.resolve("packed-refs"),
+        ("# pack-refs with: peeled fully-peeled sorted \n"
+                + commit.name()
+                + " refs/heads/master\n")
+            .getBytes(StandardCharsets.UTF_8));
+
+    assertThat(RepositoryFingerprint.readHead(gitDir))
+        .isEqualTo("HEAD=ref: refs/heads/master\nrefs/heads/master=" + commit.name());
+  }
+
+  @Test
+  public void shouldReadRefsOfWorktreeFromCommonDir() throws Exception {
+    Path worktreeGitDir = Files.createDirectories(gitDir.resolve("worktrees/feature"));
+    Files.write(
+        worktreeGitDir.resolve("HEAD"),
+        "ref: refs/heads/master\n".getBytes(StandardCharsets.UTF_8));
+    Files.write(worktreeGitDir.resolve("commondir"), "../..\n".getBytes(StandardCharsets.UTF_8));
+    RepositoryFingerprint before = RepositoryFingerprint.of(worktreeGitDir);
+
+    ObjectId commit = commit("second");
+
+    RepositoryFingerprint after = RepositoryFingerprint.of(worktreeGitDir);
+    assertThat(after).isNotEqualTo(before);
+    assertThat(after.getHead()).contains("refs/heads/master=" + commit.name());
+  }
+
+  private ObjectId commit(String message) throws Exception {
+    Files.write(repository.resolve("file.txt"), message.getBytes(StandardCharsets.UTF_8));
+    git.add().addFilepattern("file.txt").call();
+    return git.commit().setMessage(message).call().getId();
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Testcases to verify that the {@link TransformationChain} works properly.
+ */
+public class TransformationChainTest {
+  static Stream<Arguments> chains() {
+    return Stream.of(
+        Arguments.of(
+            "  Feature/JIRA-123 Fix the Thing  ",
+            "featurejira-123fixthething",
+            Arrays.asList("TRIM", "LOWER_CASE", "REMOVE_WHITESPACE", "REMOVE_SPECIAL_CHARACTERS")),
+        Arguments.of(
+            "  Feature/JIRA-123 Fix the Thing  ",
+            "FEATUREJIR",
+            Arrays.asList("REMOVE_SPECIAL_CHARACTERS", "UPPER_CASE", "TRUNCATE:10")),
+        Arguments.of(" keep as is ", "keep as", Arrays.asList("TRIM", "TRUNCATE:7")),
+        Arguments.of("Ünïcödé Branch", "ünïcödé branch", Arrays.asList("LOWER_CASE")),
+        Arguments.of("abc😀", "abc", Arrays.asList("TRUNCATE:4")),
+        Arguments.of("", "", Arrays.asList("TRIM", "UPPER_CASE")));
+  }
+
+  @ParameterizedTest
+  @MethodSource("chains")
+  public void shouldApplyRulesLikeOneByOne(String input, String expected, List<String> actions) {
+    List<TransformationRule> rules = new ArrayList<>();
+    for (String action : actions) {
+      String[] parts = action.split(":");
+      TransformationRule rule = new TransformationRule("BEFORE", parts[0]);
+      if (parts.length > 1) {
+        rule.setMaxLength(Integer.parseInt(parts[1]));
+      }
+      rules.add(rule);
+    }
+
+    String oneByOne = input;
+    for (TransformationRule rule : rules) {
+      oneByOne = rule.getActionRule().perform(oneByOne, rule.getMaxLength());
+    }
+
+    assertThat(TransformationChain.of(rules).apply(input)).isEqualTo(expected).isEqualTo(oneByOne);
+  }
+
+  @Test
+  public void shouldReturnUnchangedValueAsIs() {
+    String input = "unchanged";
+
+    assertThat(TransformationChain.EMPTY.apply(input)).isSameAs(input);
+    assertThat(
+            TransformationChain.of(
+                    Collections.singletonList(new TransformationRule("AFTER", "TRIM")))
+                .apply(input))
+        .isSameAs(input);
+  }
+
+  @Test
+  public void shouldRejectTruncateWithoutMaxLength() {
+    assertThatThrownBy(
+            () ->
+                TransformationChain.of(
+                    Collections.singletonList(new TransformationRule("AFTER", "TRUNCATE"))))
+        .isInstanceOf(IllegalStateException.class);
+  }
+}
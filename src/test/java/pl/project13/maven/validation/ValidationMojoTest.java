@@ -18,6 +18,7 @@
 
 package pl.project13.maven.validation;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.ArrayList;
@@ -69,6 +70,37 @@ public class ValidationMojoTest {
     executeMojo(getListValidationProperty(null, null, ""), validationShouldFailIfNoMatch);
   }
 
+  @Test
+  public void shouldReportEveryFailedValidation() {
+    List<ValidationProperty> validationProperties = new ArrayList<>();
+    validationProperties.add(new ValidationProperty("first", "value", "other"));
+    validationProperties.add(new ValidationProperty("matching", "value", "val"));
+    validationProperties.add(new ValidationProperty("second", "value", "^alue"));
+    validationProperties.add(new ValidationProperty("invalid", "value", "(unclosed"));
+
+    MojoExecutionException e =
+        assertThrows(MojoExecutionException.class, () -> executeMojo(validationProperties, true));
+
+    assertThat(e.getMessage())
+        .startsWith("3 validations failed!")
+        .contains("Validation 'first' failed! Expected 'value' to match with 'other'!")
+        .contains("Validation 'second' failed! Expected 'value' to match with '^alue'!")
+        .contains("Validation 'invalid' failed! The pattern '(unclosed' is invalid")
+        .doesNotContain("'matching'");
+  }
+
+  @Test
+  public void shouldReportSingleFailedValidationAsIs() {
+    MojoExecutionException e =
+        assertThrows(
+            MojoExecutionException.class,
+            () -> executeMojo(getNonMatchingValidationProperties(), true));
+
+    assertThat(e.getMessage())
+        .isEqualTo(
+            "Validation 'name' failed! Expected 'value' to match with 'thisIsNotMatchingToValue'!");
+  }
+
   private void executeMojo(
       List<ValidationProperty> validationProperties, boolean validationShouldFailIfNoMatch)
       throws MojoExecutionException {